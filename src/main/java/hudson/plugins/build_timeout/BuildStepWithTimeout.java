@@ -10,6 +10,8 @@ import hudson.model.BuildListener;
 import hudson.model.Descriptor;
 import hudson.model.Run;
 import hudson.model.TaskListener;
+import hudson.plugins.build_timeout.metrics.StrategyEvaluationEvent;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics;
 import hudson.plugins.build_timeout.operations.AbortOperation;
 import hudson.tasks.BuildStep;
 import hudson.tasks.BuildStepDescriptor;
@@ -29,6 +31,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
 
 
 public class BuildStepWithTimeout extends Builder implements BuildStep {
@@ -59,8 +62,11 @@ public class BuildStepWithTimeout extends Builder implements BuildStep {
     }
 
     private long getTimeout(Run run, TaskListener listener) throws IOException, InterruptedException {
+        StrategyEvaluationEvent event = StrategyEvaluationEvent.start();
         try {
-            return strategy.getTimeOut((AbstractBuild<?, ?>) run, (BuildListener) listener);
+            long timeOut = strategy.getTimeOut((AbstractBuild<?, ?>) run, (BuildListener) listener);
+            StrategyEvaluationEvent.end(event, run, strategy, timeOut);
+            return timeOut;
         } catch (MacroEvaluationException e) {
             e.printStackTrace(listener.getLogger());
             listener.error("Can't evaluate timeout - timeout would be disabled");
@@ -78,25 +84,89 @@ public class BuildStepWithTimeout extends Builder implements BuildStep {
     public boolean perform(final Build<?,?> build, final Launcher launcher, final BuildListener listener) throws InterruptedException, IOException {
         final Timer timer = Trigger.timer; // FIXME TODO replace with Timer
         final long delay = getTimeout(build, listener);
-
-        final TimerTask task = new SafeTimerTask() {
-            @Override
-            public void doRun() {
-                if (operationList.isEmpty()) {
-                    new AbortOperation().perform(build, listener, delay);
+        final TimeOutMetrics.Timer metered = TimeOutMetrics.get().scheduled(TimeOutMetrics.Kind.BUILD_STEP, build, strategy.getClass(), delay);
+        final ScheduledTimeOut scheduled = new ScheduledTimeOut(timer, metered, () -> {
+            List<BuildTimeOutOperation> operations = operationList.isEmpty()
+                    ? Collections.<BuildTimeOutOperation>singletonList(new AbortOperation())
+                    : operationList;
+            performEach(operations, 0, build, listener, delay).whenComplete((ignored, e) -> {
+                if (e != null) {
+                    e.printStackTrace(listener.error("Time out operation failed"));
                 }
-
-                for (BuildTimeOutOperation op : operationList) {
-                    op.perform(build, listener, delay);
-                }
-            }
-        };
+            });
+        });
 
         try {
-            timer.schedule(task, delay);
+            scheduled.schedule(delay);
             return buildStep.perform(build, launcher, listener);
         } finally {
-            task.cancel();
+            scheduled.cancel();
+        }
+    }
+
+    /**
+     * Performs the operations from {@code index} one after another, whatever the result of the previous ones,
+     * stopping only when one throws.
+     */
+    private static CompletableFuture<Void> performEach(List<BuildTimeOutOperation> operations, int index,
+                                                       Build<?, ?> build, BuildListener listener, long delay) {
+        if (index >= operations.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return OperationWatchdog.performAll(Collections.singletonList(operations.get(index)), build, listener, delay)
+                .thenCompose(succeeded -> performEach(operations, index + 1, build, listener, delay));
+    }
+
+    /**
+     * The timer of a step, which can be moved with {@link TimeOutMetrics.Timer#adjust(long)}.
+     * {@link TimerTask}s cannot be rescheduled, so moving the deadline replaces the task.
+     */
+    private static final class ScheduledTimeOut {
+        private final Timer timer;
+        private final TimeOutMetrics.Timer metered;
+        private final Runnable onTimeOut;
+        private TimerTask task; // guarded by this
+
+        private ScheduledTimeOut(Timer timer, TimeOutMetrics.Timer metered, Runnable onTimeOut) {
+            this.timer = timer;
+            this.metered = metered;
+            this.onTimeOut = onTimeOut;
+            metered.setAdjuster(this::adjust);
+        }
+
+        synchronized void schedule(long delay) {
+            task = null;
+            TimerTask t = new SafeTimerTask() {
+                @Override
+                public void doRun() {
+                    metered.fired();
+                    onTimeOut.run();
+                }
+            };
+            try {
+                timer.schedule(t, Math.max(0, delay));
+            } catch (RuntimeException e) {
+                // e.g. a delay too long for the timer: the build must not stay in the active time outs.
+                metered.cancelled();
+                throw e;
+            }
+            task = t;
+        }
+
+        synchronized void adjust(long delta) {
+            if (task == null || !task.cancel()) {
+                // fired or over
+                return;
+            }
+            long delay = Math.max(0, metered.getExpectedAt() + delta - System.currentTimeMillis());
+            metered.rescheduled(delay);
+            schedule(delay);
+        }
+
+        synchronized void cancel() {
+            if (task != null && task.cancel()) {
+                metered.cancelled();
+            }
         }
     }
 
@@ -50,6 +50,18 @@ public abstract class BuildTimeOutOperation
      * @return false not to run subsequent operations. It also mark the build as failure.
      */
     public abstract boolean perform(@NonNull AbstractBuild<?,?> build, @NonNull BuildListener listener, long effectiveTimeout);
+
+    /**
+     * How long {@link #perform(AbstractBuild, BuildListener, long)} may run
+     * before it is interrupted and abandoned.
+     * 
+     * @return execution budget (milliseconds), 0 for no limit:
+     *     the operation then runs on the thread firing the time out or completing the previous operation.
+     * @see OperationWatchdog
+     */
+    public long getExecutionBudget() {
+        return OperationWatchdog.BUDGET;
+    }
     
     /**
      * @see hudson.model.Describable#getDescriptor()
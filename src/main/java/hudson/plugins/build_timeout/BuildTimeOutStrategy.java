@@ -41,6 +41,20 @@ public abstract class BuildTimeOutStrategy implements Describable<BuildTimeOutSt
         return getTimeOut(build);
     }
 
+    /**
+     * Define the delay (in milliseconds) while the build is still waiting in the queue.
+     * 
+     * Override this when the delay depends only on the project and is costly to compute,
+     * so that it is not computed on the executor when the build starts.
+     * 
+     * @param project the project to be built
+     * @return the delay, or -1 if it can be computed only when the build starts.
+     * @see QueueTimeOutPrecomputer
+     */
+    public long getTimeOutInAdvance(@NonNull AbstractProject<?,?> project) {
+        return -1;
+    }
+
     /**
      * Called when some output to console.
      * Override this to capture the activity.
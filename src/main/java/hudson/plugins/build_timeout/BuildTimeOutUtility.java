@@ -33,6 +33,8 @@ import net.sf.json.JSONObject;
 import org.kohsuke.stapler.DataBoundConstructor;
 import org.kohsuke.stapler.StaplerRequest2;
 
+import java.util.regex.Pattern;
+
 public class BuildTimeOutUtility {
     /**
      * Construct an object from parameters input by a user.
@@ -75,5 +77,31 @@ public class BuildTimeOutUtility {
             );
         }
     }
-    
+
+    /**
+     * Job name patterns of {@link hudson.plugins.build_timeout.global.GlobalTimeOutRule}s and
+     * {@link hudson.plugins.build_timeout.metrics.DeadlineAdjustment}s, matched against the name
+     * of the job without its folder.
+     *
+     * @param glob a name where {@code *} matches any characters and {@code ?} any single character
+     * @return the pattern matching whole names.
+     */
+    public static Pattern globToPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < glob.length(); ++i) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (start < i) {
+                    regex.append(Pattern.quote(glob.substring(start, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(regex.toString());
+    }
 }
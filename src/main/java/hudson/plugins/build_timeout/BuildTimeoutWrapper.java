@@ -11,9 +11,13 @@ import hudson.model.BuildListener;
 import hudson.model.Descriptor;
 import hudson.model.Run.RunnerAbortedException;
 import hudson.plugins.build_timeout.impl.AbsoluteTimeOutStrategy;
+import hudson.plugins.build_timeout.impl.CompositeTimeOutStrategy;
 import hudson.plugins.build_timeout.impl.ElasticTimeOutStrategy;
 import hudson.plugins.build_timeout.impl.LikelyStuckTimeOutStrategy;
+import hudson.plugins.build_timeout.metrics.StrategyEvaluationEvent;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics;
 import hudson.plugins.build_timeout.operations.AbortOperation;
+import hudson.plugins.build_timeout.operations.BuildStepOperation;
 import hudson.plugins.build_timeout.operations.FailOperation;
 import hudson.plugins.build_timeout.operations.WriteDescriptionOperation;
 import hudson.tasks.BuildWrapper;
@@ -27,6 +31,8 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
@@ -41,6 +47,7 @@ import org.kohsuke.stapler.StaplerRequest2;
  * @author Kohsuke Kawaguchi
  */
 public class BuildTimeoutWrapper extends BuildWrapper {
+    private static final Logger LOG = Logger.getLogger(BuildTimeoutWrapper.class.getName());
 
     @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Diagnostic fields are left mutable so that groovy console can be used to dynamically turn/off probes.")
     public static long MINIMUM_TIMEOUT_MILLISECONDS = Long.getLong(BuildTimeoutWrapper.class.getName()+ ".MINIMUM_TIMEOUT_MILLISECONDS", 3 * 60 * 1000);
@@ -123,49 +130,123 @@ public class BuildTimeoutWrapper extends BuildWrapper {
             private final BuildListener listener;
             
             //Did some operation fail?
-            protected boolean operationFailed = false;
+            protected volatile boolean operationFailed = false;
             
             final class TimeoutTimerTask extends SafeTimerTask {
                 public void doRun() {
                     synchronized(EnvironmentImpl.this) {
+                        if (deadlines != null) {
+                            if (EnvironmentImpl.this.task != this) {
+                                // torn down or rescheduled meanwhile.
+                                return;
+                            }
+                            long remaining = deadlines.remaining(System.currentTimeMillis()) + extension;
+                            if (remaining > 0) {
+                                // the combined deadline has moved since scheduled.
+                                schedule(remaining);
+                                return;
+                            }
+                        }
                         EnvironmentImpl.this.task = null;   // mark timer is not active.
+                        metered.fired();
                     }
                     List<BuildTimeOutOperation> opList = getOperationList();
                     if (opList == null || opList.isEmpty()) {
                         // defaults to AbortOperation.
                         opList = Arrays.<BuildTimeOutOperation>asList(new AbortOperation());
                     }
-                    for( BuildTimeOutOperation op: opList ) {
-                        try {
-                            if (!op.perform(build, listener, effectiveTimeout)) {
-                                operationFailed = true;
-                                break;
-                            }
-                        } catch(RuntimeException e) {
-                            // if some unexpected exception,
-                            // mark the operation failed and pass through the exception.
+                    OperationWatchdog.performAll(opList, build, listener, effectiveTimeout).whenComplete((succeeded, e) -> {
+                        if (e != null || !succeeded) {
                             operationFailed = true;
-                            throw e;
                         }
-                    }
+                        if (e != null) {
+                            LOG.log(Level.WARNING, String.format("Time out operations of %s failed", build.getExternalizableId()), e);
+                        }
+                    });
                 }
             }
 
             private TimeoutTimerTask task = null;
+
+            /**
+             * Tracks the timer in {@link TimeOutMetrics} from the first schedule.
+             */
+            private TimeOutMetrics.Timer metered = null;
+
+            /**
+             * Milliseconds added to the deadlines computed by the strategy with {@link #adjust(long)}.
+             */
+            private long extension = 0;
             
             private final long effectiveTimeout;
+
+            /**
+             * Deadlines of the child strategies when using {@link CompositeTimeOutStrategy}.
+             */
+            private final CompositeTimeOutStrategy.Deadlines deadlines;
+            
+            /**
+             * Launcher of the build, kept for {@link BuildStepOperation}s which asked for it.
+             */
+            private volatile Launcher launcher;
             
             public EnvironmentImpl(AbstractBuild<?,?> build, BuildListener listener)
                     throws InterruptedException, MacroEvaluationException, IOException {
+                this(build, null, listener);
+            }
+            
+            public EnvironmentImpl(AbstractBuild<?,?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, MacroEvaluationException, IOException {
                 this.build = build;
                 this.listener = listener;
-                this.effectiveTimeout = strategy.getTimeOut(build, listener);
+                this.launcher = needsLauncher() ? launcher : null;
+                StrategyEvaluationEvent event = StrategyEvaluationEvent.start();
+                if (strategy instanceof CompositeTimeOutStrategy) {
+                    this.deadlines = ((CompositeTimeOutStrategy)strategy).evaluate(build, listener);
+                    this.effectiveTimeout = deadlines.getTimeOut();
+                } else {
+                    this.deadlines = null;
+                    this.effectiveTimeout = getTimeOut(build, listener);
+                }
+                StrategyEvaluationEvent.end(event, build, strategy, effectiveTimeout);
                 reschedule();
             }
 
+            /**
+             * Uses the timeout computed by {@link QueueTimeOutPrecomputer} if any.
+             */
+            private long getTimeOut(AbstractBuild<?,?> build, BuildListener listener)
+                    throws InterruptedException, MacroEvaluationException, IOException {
+                PrecomputedTimeOutAction precomputed = build.getAction(PrecomputedTimeOutAction.class);
+                if (precomputed != null) {
+                    build.removeAction(precomputed);
+                    if (precomputed.isComputedWith(strategy)) {
+                        return precomputed.getTimeOut();
+                    }
+                }
+                return strategy.getTimeOut(build, listener);
+            }
+
+            private boolean needsLauncher() {
+                for (BuildTimeOutOperation op : getOperationList()) {
+                    if (op instanceof BuildStepOperation && ((BuildStepOperation)op).isPrepareLauncher()) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            /**
+             * @return launcher of the build, already decorated by the build wrappers.
+             *     null if no operation asked for it or the build is over.
+             */
+            public Launcher getPreparedLauncher() {
+                return launcher;
+            }
+
             @Override
             public void buildEnvVars(Map<String, String> env) {
-                if (timeoutEnvVar != null) {
+                if (timeoutEnvVar != null && (deadlines == null || deadlines.hasDeadline())) {
                     env.put(timeoutEnvVar, String.valueOf(effectiveTimeout));
                 }
             }
@@ -176,9 +257,59 @@ public class BuildTimeoutWrapper extends BuildWrapper {
                     task.cancel();
                     // avoid memory leaks for the case where this timer is in the future (JENKINS-31627)
                     Trigger.timer.purge(); // FIXME TODO replace with Timer
+                    task = null;
+                }
+                if (deadlines != null && !deadlines.hasDeadline()) {
+                    // nothing to time out, e.g. a composite strategy without strategies.
+                    return;
+                }
+                schedule(((deadlines != null) ? deadlines.remaining(System.currentTimeMillis()) : effectiveTimeout) + extension);
+            }
+
+            /**
+             * Moves the deadline of the build, unless it has already timed out or is over.
+             * The change is kept when the timer is rescheduled for console activity.
+             *
+             * @param delta milliseconds to add to the deadline, negative to shorten it
+             */
+            @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH", justification = "No adequate replacement for Trigger.timer found")
+            public synchronized void adjust(long delta) {
+                if (task == null) {
+                    return;
+                }
+                task.cancel();
+                Trigger.timer.purge(); // FIXME TODO replace with Timer
+                extension += delta;
+                schedule(metered.getExpectedAt() + delta - System.currentTimeMillis());
+            }
+
+            @SuppressFBWarnings(value = "NP_NULL_ON_SOME_PATH", justification = "No adequate replacement for Trigger.timer found")
+            private void schedule(long delay) {
+                if (metered == null) {
+                    metered = TimeOutMetrics.get().scheduled(TimeOutMetrics.Kind.WRAPPER, build, strategy.getClass(), Math.max(0, delay));
+                    metered.setAdjuster(this::adjust);
+                } else {
+                    metered.rescheduled(Math.max(0, delay));
+                }
+                TimeoutTimerTask t = new TimeoutTimerTask();
+                try {
+                    Trigger.timer.schedule(t, Math.max(0, delay)); // FIXME TODO replace with Timer
+                } catch (RuntimeException e) {
+                    // e.g. a delay too long for the timer: the build must not stay in the active time outs.
+                    metered.cancelled();
+                    throw e;
+                }
+                task = t;
+            }
+
+            /**
+             * Records console activity for {@link CompositeTimeOutStrategy}.
+             * The timer is not touched: it re-arms itself when it fires before the deadline.
+             */
+            public void onActivity() {
+                if (deadlines != null) {
+                    deadlines.touch(System.currentTimeMillis());
                 }
-                task = new TimeoutTimerTask();
-                Trigger.timer.schedule(task, effectiveTimeout); // FIXME TODO replace with Timer
             }
 
             public synchronized void rescheduleIfScheduled() {
@@ -196,7 +327,9 @@ public class BuildTimeoutWrapper extends BuildWrapper {
                     // avoid memory leaks for the case where this timer is in the future (JENKINS-31627).
                     Trigger.timer.purge(); // FIXME TODO replace with Timer
                     task = null;
+                    metered.cancelled();
                 }
+                launcher = null;
                 
                 // true to continue build.
                 return !operationFailed;
@@ -206,7 +339,7 @@ public class BuildTimeoutWrapper extends BuildWrapper {
     @Override
     public Environment setUp(AbstractBuild build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException {
         try {
-            return new EnvironmentImpl(build, listener);
+            return new EnvironmentImpl(build, launcher, listener);
         } catch (MacroEvaluationException e) {
             e.printStackTrace(listener.fatalError("Could not evaluate macro"));
             throw new IOException(e.getMessage(), e);
@@ -0,0 +1,272 @@
+package hudson.plugins.build_timeout;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.plugins.build_timeout.metrics.OperationEvent;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics.Outcome;
+import hudson.security.ACL;
+import jenkins.security.ImpersonatingExecutorService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Performs chains of {@link BuildTimeOutOperation}s within their execution budget,
+ * so that an operation that hangs cannot hold the timer thread and delay other time outs.
+ *
+ * Operations run one after another on a bounded pool, and the caller only gets a future of the result.
+ * A single watchdog thread keeps the deadline of each operation, measured from its submission:
+ * an operation running out of budget is interrupted and abandoned, and the following operations
+ * are run or not depending on {@link #STOP_ON_OVERRUN}.
+ * Operations without budget, the default, run on the thread reaching them, as they did before the watchdog.
+ * Operations run on the pool as {@link ACL#SYSTEM2}, like on the timer threads.
+ */
+public final class OperationWatchdog {
+    private static final Logger LOG = Logger.getLogger(OperationWatchdog.class.getName());
+
+    /**
+     * Default execution budget of operations (milliseconds), 0 (the default) for no limit.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Diagnostic fields are left mutable so that groovy console can be used to dynamically turn/off probes.")
+    public static long BUDGET = Long.getLong(OperationWatchdog.class.getName() + ".BUDGET", 0);
+
+    /**
+     * Whether the subsequent operations are skipped when an operation runs out of budget.
+     */
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Diagnostic fields are left mutable so that groovy console can be used to dynamically turn/off probes.")
+    public static boolean STOP_ON_OVERRUN = Boolean.getBoolean(OperationWatchdog.class.getName() + ".STOP_ON_OVERRUN");
+
+    /**
+     * Operations ignoring interrupts keep their thread: when all are taken,
+     * operations wait in the queue and likely run out of budget there.
+     */
+    private static final int THREADS = Integer.getInteger(OperationWatchdog.class.getName() + ".THREADS", 8);
+
+    private static final ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            new ThreadFactoryBuilder()
+                    .setNameFormat("build-timeout-operation-%d")
+                    .setDaemon(true)
+                    .build());
+
+    private static final ExecutorService executor = new ImpersonatingExecutorService(pool, ACL.SYSTEM2);
+
+    private static final ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+            .setNameFormat("build-timeout-watchdog-%d")
+            .setDaemon(true)
+            .build());
+
+    static {
+        pool.allowCoreThreadTimeOut(true);
+        watchdog.setRemoveOnCancelPolicy(true);
+    }
+
+    private OperationWatchdog() {
+    }
+
+    /**
+     * Performs the operations in order, each within {@link BuildTimeOutOperation#getExecutionBudget()},
+     * without waiting for them.
+     *
+     * @param operations operations to perform
+     * @param build build timed out
+     * @param listener build listener
+     * @param effectiveTimeout timeout (milliseconds)
+     * @return completes with true once all operations are performed, with false as soon as one fails
+     *     or, if {@link #STOP_ON_OVERRUN}, runs out of budget. Completes exceptionally with the exception
+     *     thrown by an operation, and the following operations are not performed.
+     */
+    @NonNull
+    public static CompletableFuture<Boolean> performAll(@NonNull List<? extends BuildTimeOutOperation> operations,
+                                                       @NonNull AbstractBuild<?, ?> build,
+                                                       @NonNull BuildListener listener, long effectiveTimeout) {
+        Chain chain = new Chain(operations, build, listener, effectiveTimeout);
+        chain.next(0);
+        return chain.result;
+    }
+
+    /**
+     * Operations of a single time out.
+     */
+    private static final class Chain {
+        private final List<? extends BuildTimeOutOperation> operations;
+        private final AbstractBuild<?, ?> build;
+        private final BuildListener listener;
+        private final long effectiveTimeout;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Chain(List<? extends BuildTimeOutOperation> operations, AbstractBuild<?, ?> build,
+                      BuildListener listener, long effectiveTimeout) {
+            this.operations = operations;
+            this.build = build;
+            this.listener = listener;
+            this.effectiveTimeout = effectiveTimeout;
+        }
+
+        private void next(int index) {
+            // operations without budget run inline, in a loop rather than recursively.
+            for (int i = index; i < operations.size(); ++i) {
+                Step step = new Step(this, operations.get(i), i);
+                if (step.budget > 0) {
+                    step.submit();
+                    return;
+                }
+                if (!step.performInline()) {
+                    return;
+                }
+            }
+            result.complete(true);
+        }
+    }
+
+    /**
+     * An operation of a chain. Whichever comes first of its result and its deadline settles it.
+     */
+    private static final class Step implements Runnable {
+        private final Chain chain;
+        private final BuildTimeOutOperation operation;
+        private final int index;
+        private final long budget;
+        private final Measure measure;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private volatile Future<?> running;
+        private volatile ScheduledFuture<?> deadline;
+
+        private Step(Chain chain, BuildTimeOutOperation operation, int index) {
+            this.chain = chain;
+            this.operation = operation;
+            this.index = index;
+            this.budget = operation.getExecutionBudget();
+            this.measure = new Measure(operation, chain.build);
+        }
+
+        private void submit() {
+            try {
+                running = executor.submit(this);
+                deadline = watchdog.schedule(this::expire, budget, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                if (settle()) {
+                    record(false, measure);
+                    chain.result.completeExceptionally(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean result;
+            try {
+                result = operation.perform(chain.build, chain.listener, chain.effectiveTimeout);
+            } catch (RuntimeException | Error e) {
+                if (settle()) {
+                    record(false, measure);
+                    chain.result.completeExceptionally(e);
+                }
+                return;
+            }
+            if (!settle()) {
+                // abandoned as out of budget.
+                return;
+            }
+            if (record(result, measure)) {
+                chain.next(index + 1);
+            } else {
+                chain.result.complete(false);
+            }
+        }
+
+        /**
+         * @return whether to go on with the next operation.
+         */
+        private boolean performInline() {
+            settled.set(true);
+            boolean result;
+            try {
+                result = operation.perform(chain.build, chain.listener, chain.effectiveTimeout);
+            } catch (RuntimeException | Error e) {
+                record(false, measure);
+                chain.result.completeExceptionally(e);
+                return false;
+            }
+            if (!record(result, measure)) {
+                chain.result.complete(false);
+                return false;
+            }
+            return true;
+        }
+
+        private boolean settle() {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> d = deadline;
+            if (d != null) {
+                d.cancel(false);
+            }
+            return true;
+        }
+
+        private void expire() {
+            if (!settled.compareAndSet(false, true)) {
+                return;
+            }
+            running.cancel(true);
+            measure.done(Outcome.OVERRUN);
+            chain.listener.getLogger().println(Messages.OperationWatchdog_Overrun(
+                    operation.getClass().getSimpleName(), TimeUnit.MILLISECONDS.toSeconds(budget)));
+            LOG.log(Level.WARNING, "{0} did not complete within {1} ms for {2}",
+                    new Object[] {operation.getClass().getName(), budget, chain.build.getExternalizableId()});
+            if (STOP_ON_OVERRUN) {
+                chain.result.complete(false);
+            } else {
+                // not on the watchdog thread: the next operations may run inline.
+                executor.execute(() -> chain.next(index + 1));
+            }
+        }
+    }
+
+    private static boolean record(boolean result, Measure measure) {
+        measure.done(result ? Outcome.COMPLETED : Outcome.FAILED);
+        return result;
+    }
+
+    /**
+     * Execution time and outcome of an operation for {@link TimeOutMetrics}, {@link OperationEvent}
+     * and {@link TimeOutTimelineAction}.
+     */
+    private static final class Measure {
+        private final BuildTimeOutOperation operation;
+        private final AbstractBuild<?, ?> build;
+        private final long startedAt = System.nanoTime();
+        private final OperationEvent event = OperationEvent.start();
+
+        private Measure(BuildTimeOutOperation operation, AbstractBuild<?, ?> build) {
+            this.operation = operation;
+            this.build = build;
+        }
+
+        private void done(Outcome outcome) {
+            TimeOutMetrics.get().operation(outcome, System.nanoTime() - startedAt);
+            OperationEvent.end(event, build, operation, outcome);
+            TimeOutTimelineAction timeline = build.getAction(TimeOutTimelineAction.class);
+            if (timeline != null) {
+                timeline.operation(outcome);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package hudson.plugins.build_timeout;
+
+import hudson.model.InvisibleAction;
+
+/**
+ * Timeout computed while the build was waiting in the queue.
+ * 
+ * Attached to the queue item by {@link QueueTimeOutPrecomputer},
+ * then consumed and removed by {@link BuildTimeoutWrapper} when the build starts.
+ * Nothing but the marker is ever saved with the build.
+ */
+public class PrecomputedTimeOutAction extends InvisibleAction {
+    private final transient BuildTimeOutStrategy strategy;
+    private final transient long timeout;
+
+    public PrecomputedTimeOutAction(BuildTimeOutStrategy strategy, long timeout) {
+        this.strategy = strategy;
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param strategy the strategy the build is going to use
+     * @return true if the timeout was computed with that very strategy,
+     *      that is the configuration was not changed meanwhile.
+     */
+    public boolean isComputedWith(BuildTimeOutStrategy strategy) {
+        return this.strategy != null && this.strategy == strategy;
+    }
+
+    /**
+     * @return the timeout (milliseconds)
+     */
+    public long getTimeOut() {
+        return timeout;
+    }
+}
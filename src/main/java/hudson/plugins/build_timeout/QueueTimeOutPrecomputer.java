@@ -0,0 +1,78 @@
+package hudson.plugins.build_timeout;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import hudson.Extension;
+import hudson.model.AbstractProject;
+import hudson.model.BuildableItemWithBuildWrappers;
+import hudson.model.Queue;
+import hudson.model.queue.QueueListener;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Computes timeouts of {@link BuildTimeoutWrapper} while builds are waiting in the queue,
+ * so that costly strategies (e.g. walking the build history) don't delay the start of builds
+ * on executors.
+ * 
+ * Disabled by default. When the timeout is not ready in time,
+ * it is computed when the build starts as usual.
+ * 
+ * @see BuildTimeOutStrategy#getTimeOutInAdvance(AbstractProject)
+ */
+@Extension
+public class QueueTimeOutPrecomputer extends QueueListener {
+    private static final Logger LOG = Logger.getLogger(QueueTimeOutPrecomputer.class.getName());
+
+    @SuppressFBWarnings(value = "MS_SHOULD_BE_FINAL", justification = "Diagnostic fields are left mutable so that groovy console can be used to dynamically turn/off probes.")
+    public static boolean ENABLED = Boolean.getBoolean(QueueTimeOutPrecomputer.class.getName() + ".ENABLED");
+
+    private static final int THREADS = Integer.getInteger(QueueTimeOutPrecomputer.class.getName() + ".THREADS", 2);
+    private static final int BACKLOG = Integer.getInteger(QueueTimeOutPrecomputer.class.getName() + ".BACKLOG", 1000);
+
+    /**
+     * Bounded: items that don't fit are simply computed when the build starts.
+     */
+    private final ThreadPoolExecutor executor;
+
+    public QueueTimeOutPrecomputer() {
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(BACKLOG),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("build-timeout-precompute-%d")
+                        .setDaemon(true)
+                        .build(),
+                new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @Override
+    public void onEnterBuildable(final Queue.BuildableItem item) {
+        if (!ENABLED || !(item.task instanceof BuildableItemWithBuildWrappers)) {
+            return;
+        }
+        BuildableItemWithBuildWrappers project = (BuildableItemWithBuildWrappers)item.task;
+        BuildTimeoutWrapper wrapper = project.getBuildWrappersList().get(BuildTimeoutWrapper.class);
+        if (wrapper == null || wrapper.getStrategy() == null) {
+            return;
+        }
+        executor.execute(() -> precompute(item, project.asProject(), wrapper.getStrategy()));
+    }
+
+    private static void precompute(Queue.BuildableItem item, AbstractProject<?,?> project, BuildTimeOutStrategy strategy) {
+        try {
+            long timeout = strategy.getTimeOutInAdvance(project);
+            if (timeout >= 0) {
+                // no effect if the item has already left the queue.
+                // replaces the action computed the last time the item was buildable, carried over by the queue.
+                item.replaceAction(new PrecomputedTimeOutAction(strategy, timeout));
+            }
+        } catch (RuntimeException e) {
+            LOG.log(Level.FINE, String.format("Failed to compute the timeout of %s in advance", project.getFullName()), e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package hudson.plugins.build_timeout;
+
+import hudson.model.InvisibleAction;
+import hudson.model.Run;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Timeline of the time out of a build, saved with the build.
+ *
+ * Kept as a few primitive fields rather than a list of events, so that it adds only a few bytes to
+ * {@code build.xml} and history based strategies can read it from previous builds cheaply.
+ * Recorded for the first timer of the build (usually the wrapper or the global time out),
+ * while operation outcomes are recorded for all timers.
+ */
+public class TimeOutTimelineAction extends InvisibleAction {
+    /**
+     * At most this many operation outcomes are recorded.
+     */
+    public static final int MAX_OPERATIONS = 32;
+
+    private long computedAt;
+    private long deadline;
+    private int extensions;
+    private long longestSilence;
+    private long firedAt;
+    private long lateness;
+    private int operations;
+    /**
+     * 2 bits per operation: {@link TimeOutMetrics.Outcome#ordinal()} + 1.
+     */
+    private long outcomes;
+
+    private transient long lastScheduledAt;
+
+    TimeOutTimelineAction(long computedAt, long deadline) {
+        this.computedAt = computedAt;
+        this.deadline = deadline;
+        this.lastScheduledAt = computedAt;
+    }
+
+    /**
+     * Attaches a timeline to the build unless it already has one.
+     * Locks the build only, as the timers of a build (wrapper, steps, global time out) may start concurrently.
+     *
+     * @param build the build
+     * @param now current time (epoch milliseconds)
+     * @param deadline when the time out is expected to fire (epoch milliseconds)
+     * @return the timeline attached, null if the build already had one.
+     */
+    @CheckForNull
+    public static TimeOutTimelineAction start(@NonNull Run<?, ?> build, long now, long deadline) {
+        synchronized (build) {
+            if (build.getAction(TimeOutTimelineAction.class) != null) {
+                return null;
+            }
+            TimeOutTimelineAction timeline = new TimeOutTimelineAction(now, deadline);
+            build.addAction(timeline);
+            return timeline;
+        }
+    }
+
+    /**
+     * The deadline has moved one or more times since last reported.
+     *
+     * @param count number of moves
+     * @param silence longest time between two moves (milliseconds)
+     * @param now when the deadline last moved (epoch milliseconds)
+     * @param deadline new deadline (epoch milliseconds)
+     */
+    public synchronized void rescheduled(int count, long silence, long now, long deadline) {
+        longestSilence = Math.max(longestSilence, silence);
+        lastScheduledAt = now;
+        this.deadline = deadline;
+        extensions += count;
+    }
+
+    /**
+     * @param now current time (epoch milliseconds)
+     * @param lateness milliseconds between the deadline and now
+     */
+    public synchronized void fired(long now, long lateness) {
+        longestSilence = Math.max(longestSilence, now - lastScheduledAt);
+        this.firedAt = now;
+        this.lateness = lateness;
+    }
+
+    /**
+     * @param outcome outcome of the next operation performed
+     */
+    public synchronized void operation(@NonNull TimeOutMetrics.Outcome outcome) {
+        if (operations < MAX_OPERATIONS) {
+            outcomes |= (long) (outcome.ordinal() + 1) << (2 * operations);
+        }
+        ++operations;
+    }
+
+    /**
+     * @return when the time out was computed (epoch milliseconds).
+     */
+    public synchronized long getComputedAt() {
+        return computedAt;
+    }
+
+    /**
+     * @return the last deadline (epoch milliseconds).
+     */
+    public synchronized long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return how many times the deadline was moved.
+     */
+    public synchronized int getExtensions() {
+        return extensions;
+    }
+
+    /**
+     * @return the longest time between two moves of the deadline (milliseconds),
+     *     that is the longest silence of the console for {@link hudson.plugins.build_timeout.impl.NoActivityTimeOutStrategy}.
+     */
+    public synchronized long getLongestSilence() {
+        return longestSilence;
+    }
+
+    /**
+     * @return when the time out fired (epoch milliseconds), 0 if it did not.
+     */
+    public synchronized long getFiredAt() {
+        return firedAt;
+    }
+
+    /**
+     * @return how late the time out fired (milliseconds).
+     */
+    public synchronized long getLateness() {
+        return lateness;
+    }
+
+    /**
+     * @return number of operations performed.
+     */
+    public synchronized int getOperationCount() {
+        return operations;
+    }
+
+    /**
+     * @param index index of the operation
+     * @return its outcome, null if not recorded.
+     */
+    @CheckForNull
+    public synchronized TimeOutMetrics.Outcome getOperationOutcome(int index) {
+        if (index < 0 || index >= Math.min(operations, MAX_OPERATIONS)) {
+            return null;
+        }
+        int code = (int) ((outcomes >>> (2 * index)) & 3);
+        return TimeOutMetrics.Outcome.values()[code - 1];
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("TimeOutTimelineAction[computedAt=%d, deadline=%d, extensions=%d, longestSilence=%d, firedAt=%d, lateness=%d, operations=%d, outcomes=%x]",
+                computedAt, deadline, extensions, longestSilence, firedAt, lateness, operations, outcomes);
+    }
+}
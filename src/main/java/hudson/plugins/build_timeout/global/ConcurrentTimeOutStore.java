@@ -0,0 +1,164 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import jenkins.model.Jenkins;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * {@link TimeOutStore} safe to be updated from many executor threads at once.
+ *
+ * Time outs are keyed by job and build number rather than by externalizable id.
+ * Their lifecycle is counted by {@link hudson.plugins.build_timeout.metrics.TimeOutMetrics}.
+ */
+public class ConcurrentTimeOutStore implements TimeOutStore {
+    private static final Logger log = Logger.getLogger(ConcurrentTimeOutStore.class.getName());
+    private final ConcurrentMap<BuildKey, ScheduledFuture<?>> map = new ConcurrentHashMap<>();
+    private final Predicate<BuildKey> isBuilding;
+
+    public ConcurrentTimeOutStore() {
+        this(ConcurrentTimeOutStore::isBuilding);
+    }
+
+    ConcurrentTimeOutStore(Predicate<BuildKey> isBuilding) {
+        this.isBuilding = isBuilding;
+    }
+
+    @Override
+    public void scheduled(String key, ScheduledFuture<?> timeOut) {
+        scheduled(BuildKey.parse(key), timeOut);
+    }
+
+    @Override
+    public void scheduled(Run<?, ?> run, ScheduledFuture<?> timeOut) {
+        scheduled(BuildKey.of(run), timeOut);
+    }
+
+    @Override
+    public void cancel(String key) {
+        cancel(BuildKey.parse(key));
+    }
+
+    @Override
+    public void cancel(Run<?, ?> run) {
+        cancel(BuildKey.of(run));
+    }
+
+    private void scheduled(BuildKey key, ScheduledFuture<?> timeOut) {
+        ScheduledFuture<?> previous = map.putIfAbsent(key, timeOut);
+        if (previous != null) {
+            // only one time out per build
+            timeOut.cancel(false);
+            log.fine(() -> String.format("%s time out already present - skipping", key));
+            return;
+        }
+        log.fine(() -> String.format("%s time out stored", key));
+    }
+
+    private void cancel(BuildKey key) {
+        ScheduledFuture<?> future = map.remove(key);
+        if (future == null) {
+            log.fine(() -> String.format("%s time out not found - skipping", key));
+            return;
+        }
+        if (future.cancel(false)) {
+            log.fine(() -> String.format("%s time out cancellation succeeded", key));
+        }
+    }
+
+    @Override
+    public void sweep() {
+        for (Map.Entry<BuildKey, ScheduledFuture<?>> entry : map.entrySet()) {
+            BuildKey key = entry.getKey();
+            ScheduledFuture<?> future = entry.getValue();
+            if (future.isDone()) {
+                map.remove(key, future);
+            } else if (!isBuilding.test(key) && map.remove(key, future)) {
+                if (future.cancel(false)) {
+                    log.fine(() -> String.format("%s is no longer building - time out dropped", key));
+                }
+            }
+        }
+        log.fine(() -> String.format("tracking %d global time out(s)", map.size()));
+    }
+
+    /**
+     * @return number of time outs currently tracked.
+     */
+    public int size() {
+        return map.size();
+    }
+
+    private static boolean isBuilding(BuildKey key) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return true;
+        }
+        Job<?, ?> job = jenkins.getItemByFullName(key.job, Job.class);
+        if (job == null) {
+            return false;
+        }
+        Run<?, ?> run = job.getBuildByNumber(key.number);
+        return run != null && run.isBuilding();
+    }
+
+    /**
+     * Job full name and build number.
+     */
+    static final class BuildKey {
+        final String job;
+        final int number;
+
+        BuildKey(String job, int number) {
+            this.job = job;
+            this.number = number;
+        }
+
+        static BuildKey of(Run<?, ?> run) {
+            return new BuildKey(run.getParent().getFullName(), run.getNumber());
+        }
+
+        /**
+         * @param externalizableId as {@link Run#getExternalizableId()}
+         */
+        static BuildKey parse(String externalizableId) {
+            int hash = externalizableId.lastIndexOf('#');
+            if (hash >= 0) {
+                try {
+                    return new BuildKey(externalizableId.substring(0, hash), Integer.parseInt(externalizableId.substring(hash + 1)));
+                } catch (NumberFormatException e) {
+                    // not an externalizable id
+                }
+            }
+            return new BuildKey(externalizableId, -1);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BuildKey)) {
+                return false;
+            }
+            BuildKey other = (BuildKey) o;
+            return number == other.number && job.equals(other.job);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * job.hashCode() + number;
+        }
+
+        @Override
+        public String toString() {
+            return job + "#" + number;
+        }
+    }
+}
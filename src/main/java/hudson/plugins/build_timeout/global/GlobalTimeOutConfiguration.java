@@ -1,17 +1,18 @@
 package hudson.plugins.build_timeout.global;
 
 import hudson.Extension;
+import hudson.ExtensionList;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
-import hudson.model.Project;
+import hudson.model.Label;
+import hudson.model.labels.LabelAtom;
 import hudson.plugins.build_timeout.BuildTimeOutOperation;
 import hudson.plugins.build_timeout.BuildTimeOutOperationDescriptor;
 import hudson.plugins.build_timeout.BuildTimeOutStrategy;
 import hudson.plugins.build_timeout.BuildTimeOutStrategyDescriptor;
-import hudson.plugins.build_timeout.BuildStepWithTimeout;
 import hudson.plugins.build_timeout.operations.AbortOperation;
-import hudson.tasks.Builder;
+import hudson.plugins.build_timeout.metrics.StrategyEvaluationEvent;
 import jenkins.model.GlobalConfiguration;
 import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
@@ -21,10 +22,11 @@ import org.kohsuke.stapler.StaplerRequest2;
 import jakarta.inject.Inject;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -34,9 +36,23 @@ import static java.util.logging.Level.WARNING;
 public class GlobalTimeOutConfiguration extends GlobalConfiguration implements TimeOutProvider {
     private static final Logger log = Logger.getLogger(GlobalTimeOutConfiguration.class.getName());
     private transient Jenkins jenkins;
+    private transient StepTimeoutIndex stepTimeoutIndex;
     private BuildTimeOutStrategy strategy;
     private List<BuildTimeOutOperation> operations;
     private boolean overwriteable;
+    private transient boolean applyToRunningBuilds;
+    private List<GlobalTimeOutRule> rules;
+    /**
+     * Minutes an item may wait in the build queue, zero for no limit.
+     * Independent of {@link #strategy}: it applies even when the global time out is disabled.
+     */
+    private int queueTimeOutMinutes;
+    private transient volatile GlobalTimeOutRuleIndex ruleIndex = GlobalTimeOutRuleIndex.EMPTY;
+    /**
+     * Immutable snapshot of {@link #operations}, replaced as a whole whenever they change
+     * so that time out tasks always see a consistent chain.
+     */
+    private transient volatile List<BuildTimeOutOperation> operationChain = defaultChain();
 
     public GlobalTimeOutConfiguration() {
         load();
@@ -47,6 +63,11 @@ public class GlobalTimeOutConfiguration extends GlobalConfiguration implements T
         this.jenkins = jenkins;
     }
 
+    @Inject
+    public void setStepTimeoutIndex(StepTimeoutIndex stepTimeoutIndex) {
+        this.stepTimeoutIndex = stepTimeoutIndex;
+    }
+
     /**
      * Unchecking the 'Enable Global Timeout' box sends a null object for
      * timeout.global in the json representation of the form submission.
@@ -61,23 +82,33 @@ public class GlobalTimeOutConfiguration extends GlobalConfiguration implements T
      */
     @Override
     public boolean configure(StaplerRequest2 req, JSONObject json) {
-        JSONObject settings = json.getJSONObject("timeout").getJSONObject("global");
+        JSONObject section = json.getJSONObject("timeout");
+        JSONObject settings = section.getJSONObject("global");
+        setQueueTimeOutMinutes(section.optInt("queueTimeOutMinutes"));
         overwriteable = false;
+        applyToRunningBuilds = false;
+        setRules(null);
         if (settings.isNullObject()) {
             strategy = null;
-            operations = null;
+            setOperations(null);
             log.info("global timeout has been cleared");
         } else {
             req.bindJSON(this, settings);
-            log.info(() -> String.format("global timeout updated to %s with operations: %s", strategy, describeOperations()));
+            operationChain = chainOf(operations);
+            log.info(() -> String.format("global timeout updated to %s with operations: %s and %d rule(s)", strategy, describeOperations(), getRules().size()));
         }
         save();
+        if (applyToRunningBuilds) {
+            ExtensionList.lookupSingleton(GlobalTimeOutRunListener.class).applyToRunningBuilds();
+        }
         return true;
     }
 
     @Override
     public synchronized void load() {
         super.load();
+        ruleIndex = compile(rules);
+        operationChain = chainOf(operations);
         log.info(() -> {
             if (strategy == null) {
                 return "global timeout not set";
@@ -88,31 +119,46 @@ public class GlobalTimeOutConfiguration extends GlobalConfiguration implements T
 
     @Override
     public Optional<Duration> timeOutFor(AbstractBuild<?,?> build, BuildListener listener) {
+        BuildTimeOutStrategy applied = strategyFor(build.getProject());
+        if (applied == null || (getOverwriteable() && hasStepTimeout(build.getProject()))) {
+            return Optional.empty();
+        }
+        StrategyEvaluationEvent event = StrategyEvaluationEvent.start();
         try {
-            List<Builder> builders = ((Project<?, ?>) build.getProject()).getBuilders();
-            Optional<Builder> timeoutBuildStep = builders.stream().filter(builder -> builder instanceof BuildStepWithTimeout).findAny();
-
-            if (strategy == null || (timeoutBuildStep.isPresent() && getOverwriteable())) {
-                return Optional.empty();
-            }
-            return Optional.of(Duration.ofMillis(strategy.getTimeOut(build, listener)));
-        } catch (ClassCastException e) {
-//            log.log(WARNING, e, () -> String.format("%s cannot allow individual jobs to overwrite timeout due to ClassCastException", build.getExternalizableId()));
-            if (strategy == null) {
-                return Optional.empty();
-            }
-            try {
-                return Optional.of(Duration.ofMillis(strategy.getTimeOut(build, listener)));
-            } catch (InterruptedException | MacroEvaluationException | IOException ex) {
-                log.log(WARNING, ex, () -> String.format("%s failed to determine time out", build.getExternalizableId()));
-                return Optional.empty();
-            }
+            long timeOut = applied.getTimeOut(build, listener);
+            StrategyEvaluationEvent.end(event, build, applied, timeOut);
+            return Optional.of(Duration.ofMillis(timeOut));
         } catch (InterruptedException | MacroEvaluationException | IOException e) {
             log.log(WARNING, e, () -> String.format("%s failed to determine time out", build.getExternalizableId()));
             return Optional.empty();
         }
     }
 
+    /**
+     * @param project the job
+     * @return the strategy of the first rule matching the job, or the default strategy.
+     */
+    public BuildTimeOutStrategy strategyFor(AbstractProject<?, ?> project) {
+        GlobalTimeOutRuleIndex index = ruleIndex;
+        if (index == GlobalTimeOutRuleIndex.EMPTY) {
+            return strategy;
+        }
+        Label label = project.getAssignedLabel();
+        Set<String> labels = (label != null)
+                ? label.listAtoms().stream().map(LabelAtom::getName).collect(Collectors.toSet())
+                : Collections.emptySet();
+        GlobalTimeOutRule rule = index.find(project.getFullName(), labels);
+        return (rule != null) ? rule.getStrategy() : strategy;
+    }
+
+    private static GlobalTimeOutRuleIndex compile(List<GlobalTimeOutRule> rules) {
+        return (rules == null || rules.isEmpty()) ? GlobalTimeOutRuleIndex.EMPTY : new GlobalTimeOutRuleIndex(rules);
+    }
+
+    private boolean hasStepTimeout(AbstractProject<?, ?> project) {
+        return (stepTimeoutIndex != null) ? stepTimeoutIndex.hasStepTimeout(project) : StepTimeoutIndex.scan(project);
+    }
+
     public boolean isEnabled() {
         return strategy != null;
     }
@@ -125,17 +171,41 @@ public class GlobalTimeOutConfiguration extends GlobalConfiguration implements T
         this.overwriteable = overwriteable;
     }
 
+    /**
+     * @return whether the configuration being saved should also be applied to running builds.
+     *     Not persisted: it applies to a single save.
+     */
+    public boolean getApplyToRunningBuilds() {
+        return applyToRunningBuilds;
+    }
+
+    public void setApplyToRunningBuilds(boolean applyToRunningBuilds) {
+        this.applyToRunningBuilds = applyToRunningBuilds;
+    }
+
+    /**
+     * @return the operations to perform, {@link AbortOperation} if none is configured.
+     *     The list is immutable and does not change even if the configuration is saved meanwhile.
+     */
     @Override
     public List<BuildTimeOutOperation> getOperations() {
-        List<BuildTimeOutOperation> nullSafe = operations == null ? new LinkedList<>() : operations;
-        if (nullSafe.isEmpty()) {
-            nullSafe.add(new AbortOperation());
-        }
-        return nullSafe;
+        return operationChain;
     }
 
     public void setOperations(List<BuildTimeOutOperation> operations) {
         this.operations = operations;
+        this.operationChain = chainOf(operations);
+    }
+
+    private static List<BuildTimeOutOperation> chainOf(List<BuildTimeOutOperation> operations) {
+        if (operations == null || operations.isEmpty()) {
+            return defaultChain();
+        }
+        return Collections.unmodifiableList(new ArrayList<>(operations));
+    }
+
+    private static List<BuildTimeOutOperation> defaultChain() {
+        return Collections.singletonList(new AbortOperation());
     }
 
     public BuildTimeOutStrategy getStrategy() {
@@ -146,6 +216,30 @@ public class GlobalTimeOutConfiguration extends GlobalConfiguration implements T
         this.strategy = strategy;
     }
 
+    /**
+     * @return minutes an item may wait in the build queue before it is cancelled, zero for no limit.
+     * @see QueueTimeOutListener
+     */
+    public int getQueueTimeOutMinutes() {
+        return queueTimeOutMinutes;
+    }
+
+    public void setQueueTimeOutMinutes(int queueTimeOutMinutes) {
+        this.queueTimeOutMinutes = Math.max(0, queueTimeOutMinutes);
+    }
+
+    /**
+     * @return rules overriding the default strategy, the first matching rule applies.
+     */
+    public List<GlobalTimeOutRule> getRules() {
+        return (rules == null) ? Collections.emptyList() : Collections.unmodifiableList(rules);
+    }
+
+    public void setRules(List<GlobalTimeOutRule> rules) {
+        this.rules = (rules == null || rules.isEmpty()) ? null : new ArrayList<>(rules);
+        this.ruleIndex = compile(this.rules);
+    }
+
     public List<BuildTimeOutStrategyDescriptor> getAllStrategies() {
         return jenkins.getDescriptorList(BuildTimeOutStrategy.class);
     }
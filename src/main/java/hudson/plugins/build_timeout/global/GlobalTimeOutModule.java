@@ -6,7 +6,6 @@ import com.google.inject.Provides;
 import hudson.Extension;
 
 import jakarta.inject.Singleton;
-import java.util.HashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
@@ -33,6 +32,6 @@ public class GlobalTimeOutModule extends AbstractModule {
     @Provides
     @Singleton
     TimeOutStore providesTimeOutStore() {
-        return new InMemoryTimeOutStore(new HashMap<>());
+        return new ConcurrentTimeOutStore();
     }
 }
@@ -0,0 +1,91 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.AbstractDescribableImpl;
+import hudson.model.Descriptor;
+import hudson.plugins.build_timeout.BuildTimeOutStrategy;
+import hudson.plugins.build_timeout.BuildTimeOutStrategyDescriptor;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Global time out strategy for the jobs matching a folder, a job name and a label.
+ *
+ * Empty conditions match any job.
+ */
+public class GlobalTimeOutRule extends AbstractDescribableImpl<GlobalTimeOutRule> {
+    private final String folder;
+    private final String job;
+    private final String label;
+    private final BuildTimeOutStrategy strategy;
+
+    /**
+     * @param folder full name of the folder containing the jobs, e.g. {@code release/product}
+     * @param job job name pattern, {@code *} and {@code ?} can be used as wildcards
+     * @param label label used in the label expression assigned to the jobs
+     * @param strategy the strategy for the matching jobs
+     */
+    @DataBoundConstructor
+    public GlobalTimeOutRule(String folder, String job, String label, BuildTimeOutStrategy strategy) {
+        this.folder = normalizeFolder(folder);
+        this.job = Util.fixEmptyAndTrim(job);
+        this.label = Util.fixEmptyAndTrim(label);
+        this.strategy = strategy;
+    }
+
+    private static String normalizeFolder(String folder) {
+        folder = Util.fixEmptyAndTrim(folder);
+        if (folder == null) {
+            return null;
+        }
+        while (folder.startsWith("/")) {
+            folder = folder.substring(1);
+        }
+        while (folder.endsWith("/")) {
+            folder = folder.substring(0, folder.length() - 1);
+        }
+        return Util.fixEmpty(folder);
+    }
+
+    public String getFolder() {
+        return folder;
+    }
+
+    public String getJob() {
+        return job;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public BuildTimeOutStrategy getStrategy() {
+        return strategy;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", GlobalTimeOutRule.class.getSimpleName() + "[", "]")
+                .add("folder=" + folder)
+                .add("job=" + job)
+                .add("label=" + label)
+                .add("strategy=" + strategy)
+                .toString();
+    }
+
+    @Extension
+    public static class DescriptorImpl extends Descriptor<GlobalTimeOutRule> {
+        @Override
+        public String getDisplayName() {
+            return Messages.GlobalTimeOutRule_DisplayName();
+        }
+
+        public List<BuildTimeOutStrategyDescriptor> getAllStrategies() {
+            return Jenkins.get().getDescriptorList(BuildTimeOutStrategy.class);
+        }
+    }
+}
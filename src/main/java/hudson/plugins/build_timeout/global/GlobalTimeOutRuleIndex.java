@@ -0,0 +1,136 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.plugins.build_timeout.BuildTimeOutUtility;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * {@link GlobalTimeOutRule}s compiled for lookup.
+ *
+ * Folders are kept in a trie of path segments, literal job names and labels in maps,
+ * each leading to the set of rules (by position) they allow.
+ * A rule label matches the jobs whose label expression uses that label, e.g. {@code linux} matches
+ * {@code linux && docker}.
+ * A lookup intersects those sets and only evaluates the job name patterns of the remaining rules,
+ * in order, stopping at the first match.
+ *
+ * Immutable: a new index is compiled whenever the rules change.
+ */
+final class GlobalTimeOutRuleIndex {
+    static final GlobalTimeOutRuleIndex EMPTY = new GlobalTimeOutRuleIndex(Collections.emptyList());
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        /**
+         * Rules for the jobs in this folder and its subfolders.
+         */
+        private final BitSet rules = new BitSet();
+    }
+
+    private final GlobalTimeOutRule[] rules;
+    private final Node root = new Node();
+    private final Map<String, BitSet> byJob = new HashMap<>();
+    /**
+     * Rules without job name or with a pattern.
+     */
+    private final BitSet anyJob = new BitSet();
+    private final Pattern[] patterns;
+    private final Map<String, BitSet> byLabel = new HashMap<>();
+    private final BitSet anyLabel = new BitSet();
+
+    GlobalTimeOutRuleIndex(List<GlobalTimeOutRule> rules) {
+        this.rules = rules.toArray(new GlobalTimeOutRule[0]);
+        this.patterns = new Pattern[this.rules.length];
+        for (int i = 0; i < this.rules.length; ++i) {
+            GlobalTimeOutRule rule = this.rules[i];
+
+            Node node = root;
+            if (rule.getFolder() != null) {
+                for (String segment : rule.getFolder().split("/")) {
+                    node = node.children.computeIfAbsent(segment, s -> new Node());
+                }
+            }
+            node.rules.set(i);
+
+            String job = rule.getJob();
+            if (job == null) {
+                anyJob.set(i);
+            } else if (isPattern(job)) {
+                anyJob.set(i);
+                patterns[i] = toPattern(job);
+            } else {
+                byJob.computeIfAbsent(job, j -> new BitSet()).set(i);
+            }
+
+            if (rule.getLabel() == null) {
+                anyLabel.set(i);
+            } else {
+                byLabel.computeIfAbsent(rule.getLabel(), l -> new BitSet()).set(i);
+            }
+        }
+    }
+
+    private static boolean isPattern(String job) {
+        return job.indexOf('*') >= 0 || job.indexOf('?') >= 0;
+    }
+
+    static Pattern toPattern(String glob) {
+        return BuildTimeOutUtility.globToPattern(glob);
+    }
+
+    /**
+     * @param fullName full name of the job
+     * @param labels names of the labels in the label expression assigned to the job
+     * @return the first matching rule, null if none.
+     */
+    @CheckForNull
+    GlobalTimeOutRule find(String fullName, Collection<String> labels) {
+        if (rules.length == 0) {
+            return null;
+        }
+        int end = fullName.lastIndexOf('/');
+        String job = fullName.substring(end + 1);
+
+        BitSet candidates = (BitSet) root.rules.clone();
+        Node node = root;
+        for (int start = 0; start < end && node != null; ) {
+            int slash = fullName.indexOf('/', start);
+            node = node.children.get(fullName.substring(start, slash));
+            if (node != null) {
+                candidates.or(node.rules);
+            }
+            start = slash + 1;
+        }
+
+        BitSet jobs = (BitSet) anyJob.clone();
+        BitSet exact = byJob.get(job);
+        if (exact != null) {
+            jobs.or(exact);
+        }
+        candidates.and(jobs);
+
+        BitSet l = (BitSet) anyLabel.clone();
+        for (String label : labels) {
+            BitSet matching = byLabel.get(label);
+            if (matching != null) {
+                l.or(matching);
+            }
+        }
+        candidates.and(l);
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (patterns[i] == null || patterns[i].matcher(job).matches()) {
+                return rules[i];
+            }
+        }
+        return null;
+    }
+}
@@ -1,26 +1,91 @@
 package hudson.plugins.build_timeout.global;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import hudson.Extension;
 import hudson.Launcher;
 import hudson.model.*;
 import hudson.model.listeners.RunListener;
+import hudson.plugins.build_timeout.BuildTimeOutStrategy;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @Extension
 @Singleton
 @SuppressWarnings("unused")
 public class GlobalTimeOutRunListener extends RunListener<Run<?, ?>> {
+    private static final Logger log = Logger.getLogger(GlobalTimeOutRunListener.class.getName());
+    private static final int THREADS = Integer.getInteger(GlobalTimeOutRunListener.class.getName() + ".THREADS", 4);
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
     private final ScheduledExecutorService scheduler;
     private final TimeOutProvider timeOutProvider;
     private final TimeOutStore store;
+    /**
+     * Running builds which have a global time out.
+     */
+    private final ConcurrentMap<AbstractBuild<?, ?>, Running> running = new ConcurrentHashMap<>();
+    /**
+     * Recomputes time outs of running builds.
+     */
+    private final ThreadPoolExecutor executor;
+
+    private static final class Running {
+        private final BuildListener listener;
+        private final long startedAt;
+        private volatile long deadline;
+        @CheckForNull
+        private volatile ScheduledFuture<?> future;
+        @CheckForNull
+        private volatile TimeOutMetrics.Timer metered;
+        @CheckForNull
+        private volatile Duration duration;
+        /**
+         * Milliseconds added to the deadline computed by the strategy with {@link #adjust}.
+         */
+        private final AtomicLong extension = new AtomicLong();
+
+        private Running(BuildListener listener, long startedAt) {
+            this.listener = listener;
+            this.startedAt = startedAt;
+            this.deadline = NO_DEADLINE;
+        }
+    }
+
+    private static final class Change {
+        private final AbstractBuild<?, ?> build;
+        private final Running running;
+        private final long deadline;
+        @CheckForNull
+        private final Duration duration;
+
+        private Change(AbstractBuild<?, ?> build, Running running, long deadline, @CheckForNull Duration duration) {
+            this.build = build;
+            this.running = running;
+            this.deadline = deadline;
+            this.duration = duration;
+        }
+    }
 
     /**
      * Unused - required by sezpoz
@@ -34,20 +99,199 @@ public class GlobalTimeOutRunListener extends RunListener<Run<?, ?>> {
         this.scheduler = scheduler;
         this.timeOutProvider = timeOutProvider;
         this.store = store;
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("timeout-recompute-%d")
+                        .setDaemon(true)
+                        .build());
+        this.executor.allowCoreThreadTimeOut(true);
     }
 
     @Override
     public Environment setUpEnvironment(AbstractBuild build, Launcher launcher, BuildListener listener) throws IOException, InterruptedException, Run.RunnerAbortedException {
-        timeOutProvider.timeOutFor(build, listener)
-                .map(duration -> scheduler.schedule(TimeOutTask.create(timeOutProvider, build, listener, duration),
-                        duration.toMillis(),
-                        TimeUnit.MILLISECONDS))
-                .ifPresent(future -> store.scheduled(build.getExternalizableId(), future));
+        Running r = new Running(listener, System.currentTimeMillis());
+        timeOutProvider.timeOutFor(build, listener).ifPresent(duration -> {
+            synchronized (r) {
+                schedule(build, r, r.startedAt + duration.toMillis(), duration);
+                running.put(build, r);
+            }
+        });
         return super.setUpEnvironment(build, launcher, listener);
     }
 
     @Override
     public void onCompleted(Run<?, ?> run, @NonNull TaskListener listener) {
-        store.cancel(run.getExternalizableId());
+        Running r = running.remove(run);
+        if (r == null) {
+            store.cancel(run);
+            return;
+        }
+        synchronized (r) {
+            ScheduledFuture<?> future = r.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+            store.cancel(run);
+            if (r.metered != null) {
+                r.metered.cancelled();
+            }
+        }
+    }
+
+    private void schedule(AbstractBuild<?, ?> build, Running r, long deadline, Duration duration) {
+        long delay = Math.max(0, deadline - System.currentTimeMillis());
+        TimeOutMetrics.Timer metered = r.metered;
+        if (metered == null) {
+            metered = TimeOutMetrics.get().scheduled(TimeOutMetrics.Kind.GLOBAL, build, strategyOf(build), delay);
+            metered.setAdjuster(delta -> adjust(build, r, delta));
+            r.metered = metered;
+        } else {
+            metered.rescheduled(delay);
+        }
+        TimeOutMetrics.Timer fired = metered;
+        TimeOutTask task = TimeOutTask.create(timeOutProvider, build, r.listener, duration);
+        ScheduledFuture<?> future = scheduler.schedule(() -> {
+                    fired.fired();
+                    task.run();
+                },
+                delay,
+                TimeUnit.MILLISECONDS);
+        r.deadline = deadline;
+        r.duration = duration;
+        r.future = future;
+        store.scheduled(build, future);
+    }
+
+    private void adjust(AbstractBuild<?, ?> build, Running r, long delta) {
+        synchronized (r) {
+            ScheduledFuture<?> current = r.future;
+            Duration duration = r.duration;
+            if (current == null || duration == null || !running.containsKey(build) || !current.cancel(false)) {
+                // fired, over or not scheduled
+                return;
+            }
+            store.cancel(build);
+            r.extension.addAndGet(delta);
+            schedule(build, r, r.deadline + delta, duration);
+        }
+    }
+
+    @CheckForNull
+    private Class<?> strategyOf(AbstractBuild<?, ?> build) {
+        if (timeOutProvider instanceof GlobalTimeOutConfiguration) {
+            BuildTimeOutStrategy strategy = ((GlobalTimeOutConfiguration) timeOutProvider).strategyFor(build.getProject());
+            return (strategy != null) ? strategy.getClass() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Recomputes the global time outs of running builds in the background,
+     * e.g. after the global configuration has changed.
+     *
+     * Deadlines are still measured from the start of each build.
+     * Only the builds whose deadline has changed are rescheduled. The time outs which
+     * have already fired, and the builds which started without a global time out, are left alone.
+     *
+     * @return the number of builds rescheduled
+     */
+    public CompletableFuture<Integer> applyToRunningBuilds() {
+        List<CompletableFuture<Change>> computing = new ArrayList<>(running.size());
+        for (Map.Entry<AbstractBuild<?, ?>, Running> entry : running.entrySet()) {
+            computing.add(CompletableFuture.supplyAsync(() -> recompute(entry.getKey(), entry.getValue()), executor));
+        }
+        // no thread waits for the recomputations: the changes are applied once the last one is over.
+        return CompletableFuture.allOf(computing.toArray(new CompletableFuture<?>[0])).thenApplyAsync(ignored -> {
+            List<Change> changes = new ArrayList<>();
+            for (CompletableFuture<Change> c : computing) {
+                Change change = c.join();
+                if (change != null) {
+                    changes.add(change);
+                }
+            }
+            int count = apply(changes);
+            log.info(() -> String.format("global time out rescheduled for %d of %d running build(s)", count, computing.size()));
+            return count;
+        }, executor);
+    }
+
+    /**
+     * Replaces the time outs of builds in two batches: all the pending time outs are cancelled,
+     * then the new ones scheduled. The time outs which have fired and the builds which have completed
+     * since they were recomputed are left alone.
+     *
+     * @return the number of time outs replaced.
+     */
+    private int apply(List<Change> changes) {
+        List<Change> cancelled = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            Running r = change.running;
+            synchronized (r) {
+                if (!running.containsKey(change.build)) {
+                    // completed meanwhile
+                    continue;
+                }
+                ScheduledFuture<?> current = r.future;
+                if (current != null && !current.cancel(false)) {
+                    // fired meanwhile
+                    continue;
+                }
+                store.cancel(change.build);
+                r.future = null;
+                r.deadline = NO_DEADLINE;
+                cancelled.add(change);
+            }
+        }
+
+        int applied = 0;
+        for (Change change : cancelled) {
+            Running r = change.running;
+            synchronized (r) {
+                if (!running.containsKey(change.build)) {
+                    // completed meanwhile, which has cancelled the metered timer.
+                    continue;
+                }
+                if (change.duration != null) {
+                    schedule(change.build, r, change.deadline, change.duration);
+                } else {
+                    // no time out any more
+                    running.remove(change.build, r);
+                    TimeOutMetrics.Timer metered = r.metered;
+                    if (metered != null) {
+                        r.metered = null;
+                        metered.cancelled();
+                    }
+                }
+                ++applied;
+            }
+        }
+        return applied;
+    }
+
+    @CheckForNull
+    private Change recompute(AbstractBuild<?, ?> build, Running r) {
+        ScheduledFuture<?> current = r.future;
+        if (!build.isBuilding() || (current != null && current.isDone())) {
+            return null;
+        }
+        try {
+            Optional<Duration> duration = timeOutProvider.timeOutFor(build, r.listener);
+            long deadline = duration.map(d -> r.startedAt + d.toMillis() + r.extension.get()).orElse(NO_DEADLINE);
+            if (deadline == r.deadline) {
+                return null;
+            }
+            return new Change(build, r, deadline, duration.orElse(null));
+        } catch (RuntimeException e) {
+            log.log(Level.WARNING, e, () -> String.format("%s failed to recompute time out", build.getExternalizableId()));
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the build is running with a global time out.
+     */
+    boolean isRunning(Run<?, ?> run) {
+        return running.containsKey(run);
     }
 }
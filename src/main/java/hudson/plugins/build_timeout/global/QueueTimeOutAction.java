@@ -0,0 +1,36 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.model.InvisibleAction;
+import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.export.ExportedBean;
+
+/**
+ * Records on a queue item why it was cancelled by {@link QueueTimeOutListener}.
+ * Kept by the left item, so that it shows in the remote API of the queue item.
+ */
+@ExportedBean
+public class QueueTimeOutAction extends InvisibleAction {
+    private final int timeoutMinutes;
+    private final String reason;
+
+    public QueueTimeOutAction(int timeoutMinutes, String reason) {
+        this.timeoutMinutes = timeoutMinutes;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the queue time out which expired (minutes).
+     */
+    @Exported
+    public int getTimeoutMinutes() {
+        return timeoutMinutes;
+    }
+
+    /**
+     * @return why the item was cancelled, including why it was still waiting.
+     */
+    @Exported
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,214 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.Extension;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Job;
+import hudson.model.Queue;
+import hudson.model.queue.QueueListener;
+import jenkins.util.Timer;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import jakarta.inject.Inject;
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Cancels items which wait in the build queue for longer than their queue time out,
+ * {@link QueueTimeOutProperty} of the job or else {@link GlobalTimeOutConfiguration#getQueueTimeOutMinutes()}.
+ *
+ * Each waiting item gets a single entry in the global time out scheduler, from the time it enters the queue
+ * until it leaves it, so the queue is never scanned. The time out is read when the item enters the queue:
+ * changing the configuration only affects items queued afterwards.
+ *
+ * Expired items are collected and cancelled in batches, holding the queue lock once per batch.
+ */
+@Extension
+@Singleton
+@SuppressWarnings("unused")
+public class QueueTimeOutListener extends QueueListener {
+    private static final Logger log = Logger.getLogger(QueueTimeOutListener.class.getName());
+    private static final int BATCH = Integer.getInteger(QueueTimeOutListener.class.getName() + ".BATCH", 500);
+
+    private final ScheduledExecutorService scheduler;
+    private final GlobalTimeOutConfiguration configuration;
+    /**
+     * Items with a queue time out, by queue item id.
+     */
+    private final ConcurrentMap<Long, Waiting> waiting = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Waiting> expired = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private static final class Waiting {
+        private final long id;
+        private final int minutes;
+        @CheckForNull
+        private volatile ScheduledFuture<?> future;
+
+        private Waiting(long id, int minutes) {
+            this.id = id;
+            this.minutes = minutes;
+        }
+    }
+
+    /**
+     * Unused - required by sezpoz
+     */
+    public QueueTimeOutListener() {
+        this(null, null);
+    }
+
+    @Inject
+    public QueueTimeOutListener(@TimeOut ScheduledExecutorService scheduler, GlobalTimeOutConfiguration configuration) {
+        this.scheduler = scheduler;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Items restored from a previous run are already in the queue.
+     */
+    @Initializer(after = InitMilestone.COMPLETED)
+    public void trackQueued() {
+        for (Queue.Item item : Queue.getInstance().getItems()) {
+            track(item);
+        }
+    }
+
+    @Override
+    public void onEnterWaiting(Queue.WaitingItem wi) {
+        track(wi);
+    }
+
+    @Override
+    public void onEnterBlocked(Queue.BlockedItem bi) {
+        track(bi);
+    }
+
+    @Override
+    public void onEnterBuildable(Queue.BuildableItem bi) {
+        track(bi);
+    }
+
+    @Override
+    public void onLeft(Queue.LeftItem li) {
+        Waiting w = waiting.remove(li.getId());
+        if (w == null) {
+            return;
+        }
+        ScheduledFuture<?> future = w.future;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    private void track(Queue.Item item) {
+        if (waiting.containsKey(item.getId())) {
+            return;
+        }
+        int minutes = timeOutMinutesOf(item.task);
+        if (minutes <= 0) {
+            return;
+        }
+        Waiting w = new Waiting(item.getId(), minutes);
+        if (waiting.putIfAbsent(w.id, w) != null) {
+            return;
+        }
+        long delay = item.getInQueueSince() + TimeUnit.MINUTES.toMillis(minutes) - System.currentTimeMillis();
+        try {
+            w.future = scheduler.schedule(() -> expire(w.id), Math.max(0, delay), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            waiting.remove(w.id, w);
+            return;
+        }
+        if (!waiting.containsKey(w.id)) {
+            // left the queue meanwhile
+            w.future.cancel(false);
+        }
+    }
+
+    private int timeOutMinutesOf(Queue.Task task) {
+        Queue.Task owner = task.getOwnerTask();
+        if (!(owner instanceof Job)) {
+            return 0;
+        }
+        QueueTimeOutProperty property = ((Job<?, ?>) owner).getProperty(QueueTimeOutProperty.class);
+        if (property != null) {
+            return property.getTimeoutMinutes();
+        }
+        return configuration.getQueueTimeOutMinutes();
+    }
+
+    /**
+     * @return number of items waiting with a queue time out.
+     */
+    int getWaiting() {
+        return waiting.size();
+    }
+
+    /**
+     * Queues the item for cancellation.
+     *
+     * @param id id of the queue item
+     */
+    void expire(long id) {
+        Waiting w = waiting.remove(id);
+        if (w == null) {
+            return;
+        }
+        expired.add(w);
+        if (draining.compareAndSet(false, true)) {
+            Timer.get().submit(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            List<Waiting> batch = new ArrayList<>();
+            Waiting w;
+            while (batch.size() < BATCH && (w = expired.poll()) != null) {
+                batch.add(w);
+            }
+            if (!batch.isEmpty()) {
+                Queue.withLock(() -> cancel(batch));
+            }
+        } finally {
+            draining.set(false);
+            if (!expired.isEmpty() && draining.compareAndSet(false, true)) {
+                Timer.get().submit(this::drain);
+            }
+        }
+    }
+
+    private static void cancel(List<Waiting> batch) {
+        Queue queue = Queue.getInstance();
+        int cancelled = 0;
+        for (Waiting w : batch) {
+            Queue.Item item = queue.getItem(w.id);
+            if (item == null || item instanceof Queue.LeftItem) {
+                continue;
+            }
+            String why = item.getWhy();
+            String reason = (why != null)
+                    ? Messages.QueueTimeOutListener_ReasonWithCause(w.minutes, why)
+                    : Messages.QueueTimeOutListener_Reason(w.minutes);
+            item.addAction(new QueueTimeOutAction(w.minutes, reason));
+            if (queue.cancel(item)) {
+                ++cancelled;
+                log.info(() -> String.format("cancelled %s: %s", item.task.getFullDisplayName(), reason));
+            }
+        }
+        int count = cancelled;
+        log.fine(() -> String.format("cancelled %d of %d expired queue item(s)", count, batch.size()));
+    }
+}
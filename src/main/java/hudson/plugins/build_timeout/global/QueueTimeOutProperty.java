@@ -0,0 +1,35 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.Extension;
+import hudson.model.Job;
+import jenkins.model.OptionalJobProperty;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+/**
+ * Queue time out of a job, replacing {@link GlobalTimeOutConfiguration#getQueueTimeOutMinutes()}.
+ *
+ * @see QueueTimeOutListener
+ */
+public class QueueTimeOutProperty extends OptionalJobProperty<Job<?, ?>> {
+    private final int timeoutMinutes;
+
+    @DataBoundConstructor
+    public QueueTimeOutProperty(int timeoutMinutes) {
+        this.timeoutMinutes = Math.max(0, timeoutMinutes);
+    }
+
+    /**
+     * @return minutes builds of the job may wait in the build queue, zero for no limit.
+     */
+    public int getTimeoutMinutes() {
+        return timeoutMinutes;
+    }
+
+    @Extension
+    public static class DescriptorImpl extends OptionalJobPropertyDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.QueueTimeOutProperty_DisplayName();
+        }
+    }
+}
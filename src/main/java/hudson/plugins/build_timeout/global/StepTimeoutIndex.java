@@ -0,0 +1,111 @@
+package hudson.plugins.build_timeout.global;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Project;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.plugins.build_timeout.BuildStepWithTimeout;
+import hudson.tasks.Builder;
+import jenkins.model.Jenkins;
+
+import jakarta.inject.Inject;
+
+/**
+ * Remembers which jobs contain a {@link BuildStepWithTimeout},
+ * so that the global time out does not scan builders of every build.
+ *
+ * Updated whenever a job is loaded, created or saved.
+ */
+@Extension
+public class StepTimeoutIndex extends ItemListener {
+    /**
+     * Weak keys compare jobs by identity, and forget jobs deleted or reloaded.
+     */
+    private final Cache<Item, Boolean> index = CacheBuilder.newBuilder().weakKeys().build();
+
+    /**
+     * @param item the job
+     * @return true if the job contains a {@link BuildStepWithTimeout}
+     */
+    public boolean hasStepTimeout(Item item) {
+        Boolean hasStepTimeout = index.getIfPresent(item);
+        if (hasStepTimeout == null) {
+            hasStepTimeout = scan(item);
+            index.put(item, hasStepTimeout);
+        }
+        return hasStepTimeout;
+    }
+
+    static boolean scan(Item item) {
+        if (!(item instanceof Project)) {
+            return false;
+        }
+        for (Builder builder : ((Project<?, ?>) item).getBuilders()) {
+            if (builder instanceof BuildStepWithTimeout) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void update(Item item) {
+        if (item instanceof Project) {
+            index.put(item, scan(item));
+        }
+    }
+
+    @Override
+    public void onLoaded() {
+        for (Project<?, ?> project : Jenkins.get().allItems(Project.class)) {
+            update(project);
+        }
+    }
+
+    @Override
+    public void onCreated(Item item) {
+        update(item);
+    }
+
+    @Override
+    public void onCopied(Item src, Item item) {
+        update(item);
+    }
+
+    @Override
+    public void onUpdated(Item item) {
+        update(item);
+    }
+
+    /**
+     * Catches jobs modified and saved programmatically, which don't fire {@link ItemListener#onUpdated(Item)}.
+     */
+    @Extension
+    @SuppressWarnings("unused")
+    public static class SaveListener extends SaveableListener {
+        private final StepTimeoutIndex index;
+
+        /**
+         * Unused - required by sezpoz
+         */
+        public SaveListener() {
+            this(null);
+        }
+
+        @Inject
+        public SaveListener(StepTimeoutIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Project) {
+                index.update((Item) o);
+            }
+        }
+    }
+}
@@ -1,8 +1,25 @@
 package hudson.plugins.build_timeout.global;
 
+import hudson.model.Run;
+
 import java.util.concurrent.ScheduledFuture;
 
 public interface TimeOutStore {
     void scheduled(String key, ScheduledFuture<?> timeOut);
     void cancel(String key);
+
+    default void scheduled(Run<?, ?> run, ScheduledFuture<?> timeOut) {
+        scheduled(run.getExternalizableId(), timeOut);
+    }
+
+    default void cancel(Run<?, ?> run) {
+        cancel(run.getExternalizableId());
+    }
+
+    /**
+     * Drops time outs which have already fired or whose builds are gone.
+     * Called periodically by {@link TimeOutStoreSweeper}.
+     */
+    default void sweep() {
+    }
 }
@@ -0,0 +1,39 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.Extension;
+import hudson.model.PeriodicWork;
+
+import jakarta.inject.Inject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically drops time outs left over in {@link TimeOutStore},
+ * e.g. when a build is deleted while running.
+ */
+@Extension
+@SuppressWarnings("unused")
+public class TimeOutStoreSweeper extends PeriodicWork {
+    private final TimeOutStore store;
+
+    /**
+     * Unused - required by sezpoz
+     */
+    public TimeOutStoreSweeper() {
+        this(null);
+    }
+
+    @Inject
+    public TimeOutStoreSweeper(TimeOutStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public long getRecurrencePeriod() {
+        return TimeUnit.MINUTES.toMillis(5);
+    }
+
+    @Override
+    protected void doRun() {
+        store.sweep();
+    }
+}
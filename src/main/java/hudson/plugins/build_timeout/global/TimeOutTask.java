@@ -3,9 +3,12 @@ package hudson.plugins.build_timeout.global;
 import hudson.model.AbstractBuild;
 import hudson.model.BuildListener;
 import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.OperationWatchdog;
 
 import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -25,34 +28,49 @@ public class TimeOutTask implements Runnable {
 
     @Override
     public void run() {
-        List<BuildTimeOutOperation> operations = timeOutProvider.getOperations();
-        for (BuildTimeOutOperation operation : operations) {
-            try {
-                boolean succeeded = operation.perform(build, listener, duration.toMillis());
-                if (!succeeded) {
-                    log.info(() -> String.format(
-                            "%s failed to perform global time out %s after %d minutes - no further operations will be run",
-                            build.getExternalizableId(),
-                            operation.getClass().getSimpleName(),
-                            duration.toMinutes()
-                    ));
-                    return;
-                }
-                listener.getLogger().println("[build-timeout] Global time out activated");
-                log.fine(() -> String.format(
-                        "%s successfully performed global time out %s after %d minutes",
+        start();
+    }
+
+    /**
+     * Starts the operations without waiting for them: they run under {@link OperationWatchdog}.
+     *
+     * @return completes with whether all operations succeeded, once they are over.
+     */
+    CompletableFuture<Boolean> start() {
+        return perform(timeOutProvider.getOperations(), 0);
+    }
+
+    private CompletableFuture<Boolean> perform(List<BuildTimeOutOperation> operations, int index) {
+        if (index >= operations.size()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        BuildTimeOutOperation operation = operations.get(index);
+        return OperationWatchdog.performAll(Collections.singletonList(operation), build, listener, duration.toMillis()).handle((succeeded, e) -> {
+            if (e != null) {
+                log.log(Level.WARNING, e, () -> String.format(
+                        "%s failed to perform global time out %s after %d minutes - no further operations will be run",
                         build.getExternalizableId(),
                         operation.getClass().getSimpleName(),
                         duration.toMinutes()));
-            } catch (RuntimeException e) {
-                log.log(Level.WARNING, e, () -> String.format(
+                return false;
+            }
+            if (!succeeded) {
+                log.info(() -> String.format(
                         "%s failed to perform global time out %s after %d minutes - no further operations will be run",
                         build.getExternalizableId(),
                         operation.getClass().getSimpleName(),
-                        duration.toMinutes()));
-                return;
+                        duration.toMinutes()
+                ));
+                return false;
             }
-        }
+            listener.getLogger().println("[build-timeout] Global time out activated");
+            log.fine(() -> String.format(
+                    "%s successfully performed global time out %s after %d minutes",
+                    build.getExternalizableId(),
+                    operation.getClass().getSimpleName(),
+                    duration.toMinutes()));
+            return true;
+        }).thenCompose(succeeded -> succeeded ? perform(operations, index + 1) : CompletableFuture.completedFuture(false));
     }
 
     public static TimeOutTask create(TimeOutProvider timeOutProvider, AbstractBuild<?,?> build, BuildListener listener, Duration duration) {
@@ -0,0 +1,230 @@
+package hudson.plugins.build_timeout.impl;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.plugins.build_timeout.BuildTimeOutStrategy;
+import hudson.plugins.build_timeout.BuildTimeOutStrategyDescriptor;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.util.ListBoxModel;
+import jenkins.model.Jenkins;
+import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Combines several strategies into a single deadline.
+ *
+ * Each child strategy is evaluated once when the build starts.
+ * Children that watch the console (e.g. {@link NoActivityTimeOutStrategy}) are
+ * measured from the last output, others from the start of the build.
+ * Only one timer is kept, at the combined deadline.
+ */
+public class CompositeTimeOutStrategy extends BuildTimeOutStrategy {
+
+    /**
+     * How the deadlines of the child strategies are combined.
+     */
+    public enum Combination {
+        /**
+         * Time out as soon as any of the strategies times out.
+         */
+        EARLIEST,
+        /**
+         * Time out only when all of the strategies have timed out.
+         */
+        LATEST,
+    }
+
+    private final List<BuildTimeOutStrategy> strategies;
+    private final Combination combination;
+
+    @DataBoundConstructor
+    public CompositeTimeOutStrategy(List<BuildTimeOutStrategy> strategies, Combination combination) {
+        this.strategies = (strategies != null) ? strategies : Collections.<BuildTimeOutStrategy>emptyList();
+        this.combination = (combination != null) ? combination : Combination.EARLIEST;
+    }
+
+    /**
+     * @return strategies to combine.
+     */
+    public List<BuildTimeOutStrategy> getStrategies() {
+        return strategies;
+    }
+
+    /**
+     * @return how to combine deadlines of the strategies.
+     */
+    public Combination getCombination() {
+        return combination;
+    }
+
+    /**
+     * Evaluates all child strategies for the build.
+     *
+     * @param build the build
+     * @param listener the build listener
+     * @return deadlines of the build
+     */
+    @NonNull
+    public Deadlines evaluate(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener)
+            throws InterruptedException, MacroEvaluationException, IOException {
+        long[] timeouts = new long[strategies.size()];
+        boolean[] onActivity = new boolean[strategies.size()];
+        for (int i = 0; i < timeouts.length; ++i) {
+            BuildTimeOutStrategy strategy = strategies.get(i);
+            timeouts[i] = strategy.getTimeOut(build, listener);
+            onActivity[i] = strategy.wantsCaptureLog();
+        }
+        return new Deadlines(combination, timeouts, onActivity, System.currentTimeMillis());
+    }
+
+    @Override
+    public long getTimeOut(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener)
+            throws InterruptedException, MacroEvaluationException, IOException {
+        return evaluate(build, listener).getTimeOut();
+    }
+
+    /**
+     * Console output is never passed to the child strategies:
+     * it only moves the deadlines of children that watch the console.
+     */
+    @Override
+    public void onWrite(AbstractBuild<?, ?> build, byte[] b, int length) {
+        BuildTimeoutWrapper.EnvironmentImpl env = build.getEnvironments().get(BuildTimeoutWrapper.EnvironmentImpl.class);
+        if (env != null) {
+            env.onActivity();
+        }
+    }
+
+    @Override
+    public boolean wantsCaptureLog() {
+        for (BuildTimeOutStrategy strategy : strategies) {
+            if (strategy.wantsCaptureLog()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", CompositeTimeOutStrategy.class.getSimpleName() + "[", "]")
+                .add("combination=" + combination)
+                .add("strategies=" + strategies)
+                .toString();
+    }
+
+    /**
+     * Deadlines of the child strategies for a single build.
+     *
+     * Activity only moves deadlines later, so {@link #touch(long)} just records the time
+     * and the timer re-arms itself when it finds the combined deadline has moved.
+     */
+    public static final class Deadlines {
+        private final Combination combination;
+        private final long[] timeouts;
+        private final boolean[] onActivity;
+        private final long startedAt;
+        private volatile long lastActivity;
+
+        /**
+         * @param combination how to combine the deadlines
+         * @param timeouts timeouts of the strategies (milliseconds)
+         * @param onActivity whether each timeout is measured from the last activity
+         * @param startedAt start of the build (epoch milliseconds)
+         */
+        Deadlines(Combination combination, long[] timeouts, boolean[] onActivity, long startedAt) {
+            this.combination = combination;
+            this.timeouts = timeouts;
+            this.onActivity = onActivity;
+            this.startedAt = startedAt;
+            this.lastActivity = startedAt;
+        }
+
+        /**
+         * @return the combined deadline (epoch milliseconds).
+         */
+        public long getDeadline() {
+            long last = lastActivity;
+            long deadline = (combination == Combination.LATEST) ? Long.MIN_VALUE : Long.MAX_VALUE;
+            for (int i = 0; i < timeouts.length; ++i) {
+                long d = saturatedAdd(onActivity[i] ? last : startedAt, timeouts[i]);
+                deadline = (combination == Combination.LATEST) ? Math.max(deadline, d) : Math.min(deadline, d);
+            }
+            return (timeouts.length == 0) ? Long.MAX_VALUE : deadline;
+        }
+
+        /**
+         * @return false if there is no deadline, e.g. there are no strategies:
+         *     the build should not be timed out.
+         */
+        public boolean hasDeadline() {
+            return getDeadline() != Long.MAX_VALUE;
+        }
+
+        /**
+         * @return the combined timeout (milliseconds) measured from the start of the build.
+         */
+        public long getTimeOut() {
+            return getDeadline() - startedAt;
+        }
+
+        /**
+         * @param now current time (epoch milliseconds)
+         * @return milliseconds until the combined deadline, zero or negative if already passed.
+         */
+        public long remaining(long now) {
+            return getDeadline() - now;
+        }
+
+        /**
+         * Records console activity.
+         *
+         * @param now current time (epoch milliseconds)
+         */
+        public void touch(long now) {
+            lastActivity = now;
+        }
+
+        private static long saturatedAdd(long a, long b) {
+            long r = a + b;
+            return (b > 0 && r < a) ? Long.MAX_VALUE : r;
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends BuildTimeOutStrategyDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.CompositeTimeOutStrategy_DisplayName();
+        }
+
+        /**
+         * @return strategies available as children. Composite strategies cannot be nested.
+         */
+        public List<BuildTimeOutStrategyDescriptor> getStrategies() {
+            List<BuildTimeOutStrategyDescriptor> descriptors = Jenkins.get().getDescriptorList(BuildTimeOutStrategy.class);
+            List<BuildTimeOutStrategyDescriptor> children = new ArrayList<>(descriptors.size());
+            for (BuildTimeOutStrategyDescriptor d : descriptors) {
+                if (d != this) {
+                    children.add(d);
+                }
+            }
+            return children;
+        }
+
+        public ListBoxModel doFillCombinationItems() {
+            ListBoxModel m = new ListBoxModel();
+            m.add(Messages.CompositeTimeOutStrategy_Combination_EARLIEST(), Combination.EARLIEST.name());
+            m.add(Messages.CompositeTimeOutStrategy_Combination_LATEST(), Combination.LATEST.name());
+            return m;
+        }
+    }
+}
@@ -2,12 +2,15 @@ package hudson.plugins.build_timeout.impl;
 
 import hudson.Extension;
 import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.model.Descriptor;
 import hudson.model.Result;
+import hudson.model.Run;
 import hudson.plugins.build_timeout.BuildTimeOutStrategy;
 import hudson.plugins.build_timeout.BuildTimeOutStrategyDescriptor;
 import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.TimeOutTimelineAction;
 import hudson.util.ListBoxModel;
 import org.jenkinsci.plugins.tokenmacro.MacroEvaluationException;
 import org.kohsuke.stapler.DataBoundConstructor;
@@ -79,33 +82,59 @@ public class ElasticTimeOutStrategy extends BuildTimeOutStrategy {
     @Override
     public long getTimeOut(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener)
             throws InterruptedException, MacroEvaluationException, IOException {
-        double elasticTimeout = getElasticTimeout(Integer.parseInt(expandAll(build,listener,getTimeoutPercentage())), build, listener);
+        int timeoutPercentage = Integer.parseInt(expandAll(build, listener, getTimeoutPercentage()));
+        double elasticTimeout = (timeoutPercentage > 0)
+                ? getElasticTimeout(timeoutPercentage, build.getPreviousBuild(), Integer.parseInt(expandAll(build, listener, getNumberOfBuilds())))
+                : 0;
+        return getTimeOut(elasticTimeout, expandAll(build, listener, getTimeoutMinutesElasticDefault()));
+    }
+
+    /**
+     * Walks the build history ahead of the build when no parameter is used.
+     */
+    @Override
+    public long getTimeOutInAdvance(@NonNull AbstractProject<?, ?> project) {
+        if (hasMacros(getTimeoutPercentage()) || hasMacros(getNumberOfBuilds()) || hasMacros(getTimeoutMinutesElasticDefault())) {
+            return -1;
+        }
+        int timeoutPercentage = Integer.parseInt(getTimeoutPercentage());
+        double elasticTimeout = (timeoutPercentage > 0)
+                ? getElasticTimeout(timeoutPercentage, project.getLastBuild(), Integer.parseInt(getNumberOfBuilds()))
+                : 0;
+        return getTimeOut(elasticTimeout, getTimeoutMinutesElasticDefault());
+    }
+
+    private long getTimeOut(double elasticTimeout, String timeoutMinutesElasticDefault) {
         if (elasticTimeout == 0) {
-            return Math.max(BuildTimeoutWrapper.MINIMUM_TIMEOUT_MILLISECONDS, Integer.parseInt(expandAll(build, listener, getTimeoutMinutesElasticDefault())) * MINUTES);
+            return Math.max(BuildTimeoutWrapper.MINIMUM_TIMEOUT_MILLISECONDS, Integer.parseInt(timeoutMinutesElasticDefault) * MINUTES);
         } else {
             if (isFailSafeTimeoutDuration()) {
-                return Math.max(Integer.parseInt(expandAll(build, listener, getTimeoutMinutesElasticDefault())) * MINUTES, (long) elasticTimeout);
+                return Math.max(Integer.parseInt(timeoutMinutesElasticDefault) * MINUTES, (long) elasticTimeout);
             } else {
                 return (long) Math.max(BuildTimeoutWrapper.MINIMUM_TIMEOUT_MILLISECONDS, elasticTimeout);
             }
         }
     }
 
-    private double getElasticTimeout(int timeoutPercentage, @NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener)
-            throws InterruptedException, MacroEvaluationException, IOException {
-        return timeoutPercentage * .01D * (timeoutPercentage > 0 ? averageDuration(build,listener) : 0);
+    private static double getElasticTimeout(int timeoutPercentage, Run<?, ?> latest, int numberOfBuilds) {
+        return timeoutPercentage * .01D * averageDuration(latest, numberOfBuilds);
     }
 
-    private double averageDuration(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener)
-            throws InterruptedException, MacroEvaluationException, IOException {
+    /**
+     * Builds which timed out but were not failed by their time out operations are not considered:
+     * their duration is that of the time out rather than of the build.
+     *
+     * @param latest the latest build to consider (inclusive)
+     * @param numberOfBuilds the number of non-failing builds to consider
+     */
+    private static double averageDuration(Run<?, ?> latest, int numberOfBuilds) {
         int nonFailingBuilds = 0;
-        int durationSum = 0;
-        int numberOfBuilds = Integer.parseInt(expandAll(build, listener, getNumberOfBuilds()));
+        long durationSum = 0;
 
-        while(build != null && build.getPreviousBuild() != null && nonFailingBuilds < numberOfBuilds) {
-            build = build.getPreviousBuild();
-            if (build != null && build.getResult() != null &&
-                    build.getResult().isBetterOrEqualTo(Result.UNSTABLE)) {
+        for (Run<?, ?> build = latest; build != null && nonFailingBuilds < numberOfBuilds; build = build.getPreviousBuild()) {
+            if (build.getResult() != null &&
+                    build.getResult().isBetterOrEqualTo(Result.UNSTABLE) &&
+                    !timedOut(build)) {
                 durationSum += build.getDuration();
                 nonFailingBuilds++;
             }
@@ -114,6 +143,11 @@ public class ElasticTimeOutStrategy extends BuildTimeOutStrategy {
         return nonFailingBuilds > 0 ? ((double)durationSum) / nonFailingBuilds : 0;
     }
 
+    private static boolean timedOut(Run<?, ?> build) {
+        TimeOutTimelineAction timeline = build.getAction(TimeOutTimelineAction.class);
+        return timeline != null && timeline.getFiredAt() > 0;
+    }
+
     @Override
     public String toString() {
         return new StringJoiner(", ", ElasticTimeOutStrategy.class.getSimpleName() + "[", "]")
@@ -2,6 +2,7 @@ package hudson.plugins.build_timeout.impl;
 
 import hudson.Extension;
 import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
 import hudson.model.Descriptor;
 import hudson.model.Executor;
@@ -33,16 +34,19 @@ public class LikelyStuckTimeOutStrategy extends BuildTimeOutStrategy {
     public long getTimeOut(@NonNull AbstractBuild<?, ?> run, @NonNull BuildListener listener)
             throws InterruptedException, MacroEvaluationException, IOException {
         Executor executor = run.getExecutor();
-        if (executor == null) {
-            return TimeUnit.HOURS.toMillis(24);
-        }
+        Queue.Executable executable = (executor != null) ? executor.getCurrentExecutable() : null;
+        return getTimeOut((executable != null) ? executable.getEstimatedDuration() : -1);
+    }
 
-        Queue.Executable executable = executor.getCurrentExecutable();
-        if (executable == null) {
-            return TimeUnit.HOURS.toMillis(24);
-        }
+    @Override
+    public long getTimeOutInAdvance(@NonNull AbstractProject<?, ?> project) {
+        return getTimeOut(project.getEstimatedDuration());
+    }
 
-        long eta = executable.getEstimatedDuration();
+    /**
+     * @param eta estimated duration of the build, negative if not known
+     */
+    private static long getTimeOut(long eta) {
         if (eta >= 0) {
             return eta * 10;
         } else {
@@ -0,0 +1,67 @@
+package hudson.plugins.build_timeout.metrics;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live time out timers of the wrapper, build steps and global time outs,
+ * ordered by the time they are expected to fire.
+ *
+ * Maintained as timers are scheduled, fired and cancelled,
+ * so that listing the timers closest to firing never scans builds or executors.
+ */
+public final class ActiveTimeOutIndex {
+    private static final Comparator<TimeOutMetrics.Timer> ORDER =
+            Comparator.comparingLong(TimeOutMetrics.Timer::getExpectedAt).thenComparingLong(TimeOutMetrics.Timer::getId);
+
+    private final ConcurrentSkipListSet<TimeOutMetrics.Timer> timers = new ConcurrentSkipListSet<>(ORDER);
+    /**
+     * {@link ConcurrentSkipListSet#size()} traverses the whole set.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    ActiveTimeOutIndex() {
+    }
+
+    void add(TimeOutMetrics.Timer timer) {
+        if (timers.add(timer)) {
+            size.incrementAndGet();
+        }
+    }
+
+    void remove(TimeOutMetrics.Timer timer) {
+        if (timers.remove(timer)) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return number of live timers.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @param start number of timers to skip
+     * @param limit maximum number of timers to return
+     * @return timers closest to firing first.
+     */
+    @NonNull
+    public List<TimeOutMetrics.Timer> page(int start, int limit) {
+        List<TimeOutMetrics.Timer> page = new ArrayList<>(Math.max(0, Math.min(limit, size())));
+        Iterator<TimeOutMetrics.Timer> it = timers.iterator();
+        for (int i = 0; i < start && it.hasNext(); ++i) {
+            it.next();
+        }
+        while (page.size() < limit && it.hasNext()) {
+            page.add(it.next());
+        }
+        return page;
+    }
+}
@@ -0,0 +1,145 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.Extension;
+import hudson.Util;
+import hudson.model.ManagementLink;
+import hudson.model.Run;
+import hudson.security.Permission;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.QueryParameter;
+import org.kohsuke.stapler.StaplerResponse2;
+import org.kohsuke.stapler.verb.POST;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists running builds by the time left until they time out,
+ * as a page at {@code /manage/build-timeouts/} and as JSON at {@code /manage/build-timeouts/api}.
+ * Deadlines can be moved with a POST to {@code /manage/build-timeouts/adjust}, see {@link DeadlineAdjustment}.
+ */
+@Extension
+public class ActiveTimeOutsLink extends ManagementLink {
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    @Override
+    public String getIconFileName() {
+        return "clock.png";
+    }
+
+    @Override
+    public String getDisplayName() {
+        return Messages.ActiveTimeOutsLink_DisplayName();
+    }
+
+    @Override
+    public String getDescription() {
+        return Messages.ActiveTimeOutsLink_Description();
+    }
+
+    @Override
+    public String getUrlName() {
+        return "build-timeouts";
+    }
+
+    @NonNull
+    @Override
+    public Permission getRequiredPermission() {
+        return Jenkins.SYSTEM_READ;
+    }
+
+    @NonNull
+    @Override
+    public Category getCategory() {
+        return Category.STATUS;
+    }
+
+    /**
+     * @return the number of time outs shown per page.
+     */
+    public int getPageSize() {
+        return DEFAULT_LIMIT;
+    }
+
+    /**
+     * @return the number of live time outs.
+     */
+    public int getCount() {
+        return TimeOutMetrics.get().getActiveTimeOuts().size();
+    }
+
+    /**
+     * @param start number of time outs to skip
+     * @param limit maximum number of time outs to return
+     * @return time outs closest to firing first.
+     */
+    public List<TimeOutMetrics.Timer> getTimeOuts(int start, int limit) {
+        return TimeOutMetrics.get().getActiveTimeOuts().page(Math.max(0, start), clamp(limit));
+    }
+
+    /**
+     * @param timer a time out
+     * @return time left until the time out fires, or how late it is.
+     */
+    public String remainingOf(TimeOutMetrics.Timer timer) {
+        long remaining = timer.getExpectedAt() - System.currentTimeMillis();
+        return (remaining >= 0)
+                ? Util.getTimeSpanString(remaining)
+                : Messages.ActiveTimeOutsLink_Overdue(Util.getTimeSpanString(-remaining));
+    }
+
+    /**
+     * @param start the start parameter of the page
+     * @return the number of time outs to skip.
+     */
+    public int startOf(String start) {
+        try {
+            return (start != null) ? Math.max(0, Integer.parseInt(start)) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static int clamp(int limit) {
+        return (limit <= 0) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+    }
+
+    public void doApi(@QueryParameter int start, @QueryParameter int limit, StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        long now = System.currentTimeMillis();
+        JSONArray timeOuts = new JSONArray();
+        for (TimeOutMetrics.Timer timer : getTimeOuts(start, limit)) {
+            Run<?, ?> build = timer.getBuild();
+            JSONObject o = new JSONObject();
+            o.put("build", (build != null) ? build.getExternalizableId() : null);
+            o.put("url", (build != null) ? build.getUrl() : null);
+            o.put("kind", timer.getKind().name());
+            o.put("strategy", timer.getStrategy());
+            o.put("deadline", timer.getExpectedAt());
+            o.put("remainingMillis", timer.getExpectedAt() - now);
+            timeOuts.add(o);
+        }
+        JSONObject json = new JSONObject();
+        json.put("total", getCount());
+        json.put("start", Math.max(0, start));
+        json.put("timeOuts", timeOuts);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().write(json.toString());
+    }
+
+    @POST
+    public void doAdjust(@QueryParameter String folder, @QueryParameter String label, @QueryParameter String job,
+                         @QueryParameter long minutes, StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        int affected = new DeadlineAdjustment(folder, label, job).apply(TimeUnit.MINUTES.toMillis(minutes));
+        JSONObject json = new JSONObject();
+        json.put("affected", affected);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().write(json.toString());
+    }
+}
@@ -0,0 +1,47 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.Extension;
+import hudson.cli.CLICommand;
+import jenkins.model.Jenkins;
+import org.kohsuke.args4j.Argument;
+import org.kohsuke.args4j.Option;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves the deadlines of running builds from the command line.
+ *
+ * {@code java -jar jenkins-cli.jar adjust-build-timeouts --folder team 30}
+ */
+@Extension
+public class AdjustTimeOutsCommand extends CLICommand {
+    @Option(name = "--folder", metaVar = "FOLDER", usage = "Only builds of jobs in this folder")
+    public String folder;
+
+    @Option(name = "--label", metaVar = "LABEL", usage = "Only builds running on nodes matching this label expression")
+    public String label;
+
+    @Option(name = "--job", metaVar = "PATTERN", usage = "Only builds of jobs whose name, without folder, matches. * and ? are wildcards")
+    public String job;
+
+    @Argument(metaVar = "MINUTES", required = true, usage = "Minutes to add to the deadlines, negative to shorten them")
+    public long minutes;
+
+    @Override
+    public String getName() {
+        return "adjust-build-timeouts";
+    }
+
+    @Override
+    public String getShortDescription() {
+        return Messages.AdjustTimeOutsCommand_ShortDescription();
+    }
+
+    @Override
+    protected int run() throws Exception {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        int affected = new DeadlineAdjustment(folder, label, job).apply(TimeUnit.MINUTES.toMillis(minutes));
+        stdout.println(Messages.AdjustTimeOutsCommand_Adjusted(affected));
+        return 0;
+    }
+}
@@ -0,0 +1,78 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.Util;
+import hudson.model.AbstractBuild;
+import hudson.model.Label;
+import hudson.model.Node;
+import hudson.model.Run;
+import hudson.plugins.build_timeout.BuildTimeOutUtility;
+import jenkins.model.Jenkins;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Moves the deadlines of a selection of running builds, e.g. to give builds more time during an outage.
+ *
+ * Builds are selected by folder, label expression of the node they run on and job name pattern.
+ * Criteria left empty select any build.
+ * All the criteria are checked in one pass over {@link ActiveTimeOutIndex},
+ * and each timer of the selected builds is rescheduled once.
+ */
+public final class DeadlineAdjustment {
+    @CheckForNull
+    private final String folder;
+    @CheckForNull
+    private final Label label;
+    @CheckForNull
+    private final Pattern job;
+
+    /**
+     * @param folder full name of the folder containing the jobs, null for any folder.
+     * @param label label expression of the nodes running the builds, null for any node.
+     * @param job name of the jobs without their folder, where {@code *} and {@code ?} are wildcards. null for any job.
+     */
+    public DeadlineAdjustment(@CheckForNull String folder, @CheckForNull String label, @CheckForNull String job) {
+        String f = Util.fixEmptyAndTrim(folder);
+        this.folder = (f != null) ? f.replaceAll("^/+|/+$", "") : null;
+        String l = Util.fixEmptyAndTrim(label);
+        this.label = (l != null) ? Jenkins.get().getLabel(l) : null;
+        String j = Util.fixEmptyAndTrim(job);
+        this.job = (j != null) ? BuildTimeOutUtility.globToPattern(j) : null;
+    }
+
+    boolean matches(@NonNull Run<?, ?> build) {
+        String fullName = build.getParent().getFullName();
+        if (folder != null && !fullName.startsWith(folder + "/")) {
+            return false;
+        }
+        if (job != null && !job.matcher(build.getParent().getName()).matches()) {
+            return false;
+        }
+        if (label != null) {
+            Node node = (build instanceof AbstractBuild) ? ((AbstractBuild<?, ?>) build).getBuiltOn() : null;
+            return node != null && label.contains(node);
+        }
+        return true;
+    }
+
+    /**
+     * @param deltaMillis milliseconds to add to the deadlines, negative to shorten them
+     * @return the number of builds whose deadlines were moved.
+     */
+    public int apply(long deltaMillis) {
+        List<TimeOutMetrics.Timer> timers = TimeOutMetrics.get().getActiveTimeOuts().page(0, Integer.MAX_VALUE);
+        Set<Run<?, ?>> affected = new HashSet<>();
+        for (TimeOutMetrics.Timer timer : timers) {
+            Run<?, ?> build = timer.getBuild();
+            if (build != null && matches(build) && timer.adjust(deltaMillis)) {
+                affected.add(build);
+            }
+        }
+        return affected.size();
+    }
+}
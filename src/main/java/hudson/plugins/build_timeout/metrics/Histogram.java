@@ -0,0 +1,111 @@
+package hudson.plugins.build_timeout.metrics;
+
+import net.sf.json.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of values (milliseconds) in fixed buckets.
+ *
+ * Lock-free and allocation-free when recording: one bucket counter and the sum are incremented,
+ * and the maximum is updated if needed.
+ */
+public final class Histogram {
+    /**
+     * Upper bounds (inclusive) of the buckets. The last bucket counts anything larger.
+     */
+    static final long[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000, 60000, Long.MAX_VALUE};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * @param value value to record, negative values are recorded as 0.
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        buckets.incrementAndGet(bucketOf(v));
+        sum.add(v);
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) {
+            m = max.get();
+        }
+    }
+
+    static int bucketOf(long value) {
+        int low = 0;
+        int high = BOUNDS.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (value <= BOUNDS[mid]) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return number of recorded values.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); ++i) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile between 0 and 1
+     * @return upper bound of the bucket containing the quantile, 0 if nothing recorded.
+     *     The maximum for the last bucket.
+     */
+    public long getPercentile(double quantile) {
+        long[] counts = new long[buckets.length()];
+        long count = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < counts.length; ++i) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return (i == counts.length - 1) ? getMax() : Math.min(BOUNDS[i], getMax());
+            }
+        }
+        return getMax();
+    }
+
+    JSONObject toJSON() {
+        JSONObject buckets = new JSONObject();
+        for (int i = 0; i < BOUNDS.length; ++i) {
+            buckets.put((i == BOUNDS.length - 1) ? "+Inf" : Long.toString(BOUNDS[i]), this.buckets.get(i));
+        }
+        JSONObject json = new JSONObject();
+        json.put("count", getCount());
+        json.put("sum", getSum());
+        json.put("max", getMax());
+        json.put("p50", getPercentile(0.5));
+        json.put("p99", getPercentile(0.99));
+        json.put("buckets", buckets);
+        return json;
+    }
+}
@@ -0,0 +1,68 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.model.Run;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * Flight recorder event for a time out operation performed on a build.
+ * The duration of the event is the execution time of the operation.
+ */
+@Name("hudson.plugins.build_timeout.Operation")
+@Label("Time Out Operation")
+@Category({"Jenkins", "Build Timeout"})
+@Description("A time out operation is performed on a build")
+@Enabled(false)
+@StackTrace(false)
+public final class OperationEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(OperationEvent.class);
+
+    @Label("Build")
+    String build;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Outcome")
+    String outcome;
+
+    /**
+     * @return the started event, null when not recorded.
+     */
+    @CheckForNull
+    public static OperationEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        OperationEvent event = new OperationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param event the event returned by {@link #start()}
+     * @param build the build timed out
+     * @param operation the operation performed
+     * @param outcome the outcome of the operation
+     */
+    public static void end(@CheckForNull OperationEvent event, Run<?, ?> build, Object operation, TimeOutMetrics.Outcome outcome) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.build = build.getExternalizableId();
+            event.operation = operation.getClass().getName();
+            event.outcome = outcome.name();
+            event.commit();
+        }
+    }
+}
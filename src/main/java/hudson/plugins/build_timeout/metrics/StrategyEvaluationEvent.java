@@ -0,0 +1,70 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.model.Run;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * Flight recorder event for the evaluation of the time out of a build by a strategy.
+ * The duration of the event is the duration of the evaluation.
+ */
+@Name("hudson.plugins.build_timeout.StrategyEvaluation")
+@Label("Time Out Strategy Evaluation")
+@Category({"Jenkins", "Build Timeout"})
+@Description("Evaluation of the time out of a build")
+@Enabled(false)
+@StackTrace(false)
+public final class StrategyEvaluationEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(StrategyEvaluationEvent.class);
+
+    @Label("Build")
+    String build;
+
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Time Out")
+    @Timespan(Timespan.MILLISECONDS)
+    long timeOut;
+
+    /**
+     * @return the started event, null when not recorded.
+     */
+    @CheckForNull
+    public static StrategyEvaluationEvent start() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        StrategyEvaluationEvent event = new StrategyEvaluationEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param event the event returned by {@link #start()}
+     * @param build the build evaluated
+     * @param strategy the strategy evaluating
+     * @param timeOut the time out (milliseconds)
+     */
+    public static void end(@CheckForNull StrategyEvaluationEvent event, Run<?, ?> build, Object strategy, long timeOut) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.build = build.getExternalizableId();
+            event.strategy = (strategy != null) ? strategy.getClass().getName() : null;
+            event.timeOut = timeOut;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.init.Terminator;
+import hudson.model.Run;
+import hudson.plugins.build_timeout.TimeOutTimelineAction;
+import net.sf.json.JSONObject;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Counters and histograms of the time out timers of build wrappers, build steps and global time outs,
+ * published through JMX and {@link TimeOutMetricsAction}.
+ *
+ * Each armed timer is tracked with a {@link Timer}, which counts as a live time out
+ * until it either fires or is cancelled.
+ */
+public final class TimeOutMetrics implements TimeOutMetricsMXBean {
+    private static final Logger LOG = Logger.getLogger(TimeOutMetrics.class.getName());
+    private static final TimeOutMetrics INSTANCE = new TimeOutMetrics();
+    static final String OBJECT_NAME = "hudson.plugins.build_timeout:type=TimeOutMetrics";
+
+    private final long startedAt = System.currentTimeMillis();
+    private final LongAdder live = new LongAdder();
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder rescheduled = new LongAdder();
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> firedByStrategy = new ConcurrentHashMap<>();
+    private final LongAdder operationCompleted = new LongAdder();
+    private final LongAdder operationFailed = new LongAdder();
+    private final LongAdder operationOverrun = new LongAdder();
+    private final Histogram lateness = new Histogram();
+    private final Histogram operationTime = new Histogram();
+    private final AtomicLong ids = new AtomicLong();
+    private final ActiveTimeOutIndex active = new ActiveTimeOutIndex();
+
+    private TimeOutMetrics() {
+    }
+
+    @NonNull
+    public static TimeOutMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Outcome of a time out operation.
+     */
+    public enum Outcome {
+        COMPLETED,
+        FAILED,
+        OVERRUN,
+    }
+
+    /**
+     * Where a time out timer comes from.
+     */
+    public enum Kind {
+        /**
+         * {@link hudson.plugins.build_timeout.BuildTimeoutWrapper}
+         */
+        WRAPPER,
+        /**
+         * {@link hudson.plugins.build_timeout.BuildStepWithTimeout}
+         */
+        BUILD_STEP,
+        /**
+         * {@link hudson.plugins.build_timeout.global.GlobalTimeOutConfiguration}
+         */
+        GLOBAL,
+    }
+
+    /**
+     * Moves the deadline of a live timer, see {@link Timer#adjust(long)}.
+     */
+    @FunctionalInterface
+    public interface Adjuster {
+        /**
+         * Reschedules the timer, unless it has already fired or has been cancelled.
+         *
+         * @param deltaMillis milliseconds to add to the deadline, negative to shorten it
+         */
+        void adjust(long deltaMillis);
+    }
+
+    /**
+     * A time out timer, from being armed until it fires or is cancelled.
+     *
+     * Live timers are kept in {@link #getActiveTimeOuts()} ordered by their expected firing time.
+     * Rescheduling, which happens for every line of console output with
+     * {@link hudson.plugins.build_timeout.impl.NoActivityTimeOutStrategy}, moves the timer in the index
+     * but is reported to the {@link TimeOutTimelineAction} only when the timer fires or is cancelled.
+     */
+    public final class Timer {
+        private final long id = ids.incrementAndGet();
+        private final Kind kind;
+        @CheckForNull
+        private final Run<?, ?> build;
+        private final String strategy;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile long expectedAt;
+        // guarded by this, reported to the timeline when done.
+        private long lastScheduledAt;
+        private long longestSilence;
+        private int extensions;
+        @CheckForNull
+        private volatile Adjuster adjuster;
+        @CheckForNull
+        private final TimeOutTimelineAction timeline;
+
+        private Timer(Kind kind, @CheckForNull Run<?, ?> build, String strategy, long delayMillis) {
+            this.kind = kind;
+            this.build = build;
+            this.strategy = strategy;
+            long now = System.currentTimeMillis();
+            this.expectedAt = now + delayMillis;
+            this.lastScheduledAt = now;
+            this.timeline = (build != null) ? TimeOutTimelineAction.start(build, now, expectedAt) : null;
+            active.add(this);
+            TimerEvent.commit(build, strategy, TimerEvent.SCHEDULED, delayMillis);
+        }
+
+        long getId() {
+            return id;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * @return the build, null if not known.
+         */
+        @CheckForNull
+        public Run<?, ?> getBuild() {
+            return build;
+        }
+
+        /**
+         * @return simple class name of the strategy.
+         */
+        public String getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * @return when the timer is expected to fire (epoch milliseconds).
+         */
+        public long getExpectedAt() {
+            return expectedAt;
+        }
+
+        /**
+         * @param adjuster how the owner of the timer moves its deadline, null if not supported.
+         */
+        public void setAdjuster(@CheckForNull Adjuster adjuster) {
+            this.adjuster = adjuster;
+        }
+
+        /**
+         * Moves the deadline of the timer.
+         *
+         * @param deltaMillis milliseconds to add to the deadline, negative to shorten it
+         * @return false if the timer cannot be adjusted or is not live.
+         */
+        public boolean adjust(long deltaMillis) {
+            Adjuster a = adjuster;
+            if (a == null || done.get()) {
+                return false;
+            }
+            a.adjust(deltaMillis);
+            return true;
+        }
+
+        /**
+         * The timer is armed again for another delay.
+         *
+         * @param delayMillis milliseconds until the timer fires
+         */
+        public void rescheduled(long delayMillis) {
+            synchronized (this) {
+                if (!done.get()) {
+                    long now = System.currentTimeMillis();
+                    longestSilence = Math.max(longestSilence, now - lastScheduledAt);
+                    lastScheduledAt = now;
+                    ++extensions;
+                    // the index is ordered by expectedAt: only changed while out of it.
+                    active.remove(this);
+                    expectedAt = now + delayMillis;
+                    active.add(this);
+                }
+            }
+            rescheduled.increment();
+            TimerEvent.commit(build, strategy, TimerEvent.RESCHEDULED, delayMillis);
+        }
+
+        /**
+         * The timer has fired: records how late it fired. No effect if already fired or cancelled.
+         */
+        public void fired() {
+            if (done.compareAndSet(false, true)) {
+                done();
+                live.decrement();
+                fired.increment();
+                firedByStrategy.computeIfAbsent(strategy, s -> new LongAdder()).increment();
+                long now = System.currentTimeMillis();
+                long late = now - expectedAt;
+                lateness.record(late);
+                if (timeline != null) {
+                    timeline.fired(now, late);
+                }
+                TimerEvent.commit(build, strategy, TimerEvent.FIRED, late);
+            }
+        }
+
+        private synchronized void done() {
+            active.remove(this);
+            if (timeline != null && extensions > 0) {
+                timeline.rescheduled(extensions, longestSilence, lastScheduledAt, expectedAt);
+            }
+        }
+
+        /**
+         * The timer was cancelled before firing. No effect if already fired or cancelled.
+         */
+        public void cancelled() {
+            if (done.compareAndSet(false, true)) {
+                done();
+                live.decrement();
+                cancelled.increment();
+                TimerEvent.commit(build, strategy, TimerEvent.CANCELLED, 0);
+            }
+        }
+    }
+
+    /**
+     * @param kind where the timer comes from
+     * @param build the build the timer is for, null if not known.
+     * @param strategy the class of the strategy which computed the time out, null if unknown.
+     * @param delayMillis milliseconds until the timer fires
+     * @return the timer to report firing or cancellation to.
+     */
+    @NonNull
+    public Timer scheduled(@NonNull Kind kind, @CheckForNull Run<?, ?> build, @CheckForNull Class<?> strategy, long delayMillis) {
+        scheduled.increment();
+        live.increment();
+        return new Timer(kind, build, (strategy != null) ? strategy.getSimpleName() : "unknown", delayMillis);
+    }
+
+    /**
+     * @return live timers ordered by their expected firing time.
+     */
+    @NonNull
+    public ActiveTimeOutIndex getActiveTimeOuts() {
+        return active;
+    }
+
+    /**
+     * @param outcome outcome of the operation
+     * @param nanos time the operation took
+     */
+    public void operation(@NonNull Outcome outcome, long nanos) {
+        switch (outcome) {
+            case COMPLETED:
+                operationCompleted.increment();
+                break;
+            case FAILED:
+                operationFailed.increment();
+                break;
+            default:
+                operationOverrun.increment();
+                break;
+        }
+        operationTime.record(TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    @Override
+    public long getLiveTimeOuts() {
+        return live.sum();
+    }
+
+    @Override
+    public long getScheduledCount() {
+        return scheduled.sum();
+    }
+
+    @Override
+    public long getRescheduledCount() {
+        return rescheduled.sum();
+    }
+
+    @Override
+    public long getFiredCount() {
+        return fired.sum();
+    }
+
+    @Override
+    public long getCancelledCount() {
+        return cancelled.sum();
+    }
+
+    @Override
+    public Map<String, Long> getFiredCountByStrategy() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : firedByStrategy.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().sum());
+        }
+        return counts;
+    }
+
+    @Override
+    public long getOperationCompletedCount() {
+        return operationCompleted.sum();
+    }
+
+    @Override
+    public long getOperationFailedCount() {
+        return operationFailed.sum();
+    }
+
+    @Override
+    public long getOperationOverrunCount() {
+        return operationOverrun.sum();
+    }
+
+    @Override
+    public long getLatenessMillisP50() {
+        return lateness.getPercentile(0.5);
+    }
+
+    @Override
+    public long getLatenessMillisP99() {
+        return lateness.getPercentile(0.99);
+    }
+
+    @Override
+    public long getLatenessMillisMax() {
+        return lateness.getMax();
+    }
+
+    @Override
+    public long getOperationMillisP50() {
+        return operationTime.getPercentile(0.5);
+    }
+
+    @Override
+    public long getOperationMillisP99() {
+        return operationTime.getPercentile(0.99);
+    }
+
+    @Override
+    public long getOperationMillisMax() {
+        return operationTime.getMax();
+    }
+
+    /**
+     * @return timer lateness (milliseconds between the expected and the actual firing).
+     */
+    public Histogram getLateness() {
+        return lateness;
+    }
+
+    /**
+     * @return execution time of operations (milliseconds).
+     */
+    public Histogram getOperationTime() {
+        return operationTime;
+    }
+
+    /**
+     * Rates are averaged since startup: monitoring systems derive current rates from the counters.
+     */
+    JSONObject toJSON() {
+        double uptime = Math.max(1, System.currentTimeMillis() - startedAt) / 1000.0;
+        JSONObject timers = new JSONObject();
+        timers.put("live", getLiveTimeOuts());
+        timers.put("scheduled", getScheduledCount());
+        timers.put("rescheduled", getRescheduledCount());
+        timers.put("fired", getFiredCount());
+        timers.put("cancelled", getCancelledCount());
+        timers.put("scheduledPerSecond", getScheduledCount() / uptime);
+        timers.put("rescheduledPerSecond", getRescheduledCount() / uptime);
+        timers.put("firedByStrategy", getFiredCountByStrategy());
+        timers.put("latenessMillis", lateness.toJSON());
+
+        JSONObject operations = new JSONObject();
+        operations.put("completed", getOperationCompletedCount());
+        operations.put("failed", getOperationFailedCount());
+        operations.put("overrun", getOperationOverrunCount());
+        operations.put("millis", operationTime.toJSON());
+
+        JSONObject json = new JSONObject();
+        json.put("uptimeSeconds", (long) uptime);
+        json.put("timers", timers);
+        json.put("operations", operations);
+        return json;
+    }
+
+    @Initializer(after = InitMilestone.PLUGINS_STARTED)
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "failed to register build timeout metrics to JMX", e);
+        }
+    }
+
+    @Terminator
+    public static void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            LOG.log(Level.FINE, "failed to unregister build timeout metrics from JMX", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+import java.io.IOException;
+
+/**
+ * Serves {@link TimeOutMetrics} as JSON at {@code /build-timeout-metrics/}.
+ */
+@Extension
+public class TimeOutMetricsAction implements RootAction {
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "build-timeout-metrics";
+    }
+
+    public void doIndex(StaplerRequest2 req, StaplerResponse2 rsp) throws IOException {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        rsp.setContentType("application/json;charset=UTF-8");
+        rsp.getWriter().write(TimeOutMetrics.get().toJSON().toString());
+    }
+}
@@ -0,0 +1,38 @@
+package hudson.plugins.build_timeout.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link TimeOutMetrics}.
+ */
+public interface TimeOutMetricsMXBean {
+    long getLiveTimeOuts();
+
+    long getScheduledCount();
+
+    long getRescheduledCount();
+
+    long getFiredCount();
+
+    long getCancelledCount();
+
+    Map<String, Long> getFiredCountByStrategy();
+
+    long getOperationCompletedCount();
+
+    long getOperationFailedCount();
+
+    long getOperationOverrunCount();
+
+    long getLatenessMillisP50();
+
+    long getLatenessMillisP99();
+
+    long getLatenessMillisMax();
+
+    long getOperationMillisP50();
+
+    long getOperationMillisP99();
+
+    long getOperationMillisMax();
+}
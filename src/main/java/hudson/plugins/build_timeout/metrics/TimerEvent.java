@@ -0,0 +1,60 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.model.Run;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+
+/**
+ * Flight recorder event for a time out timer being scheduled, rescheduled, fired or cancelled.
+ */
+@Name("hudson.plugins.build_timeout.Timer")
+@Label("Time Out Timer")
+@Category({"Jenkins", "Build Timeout"})
+@Description("A time out timer is scheduled, rescheduled, fired or cancelled")
+@Enabled(false)
+@StackTrace(false)
+public final class TimerEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(TimerEvent.class);
+
+    static final String SCHEDULED = "scheduled";
+    static final String RESCHEDULED = "rescheduled";
+    static final String FIRED = "fired";
+    static final String CANCELLED = "cancelled";
+
+    @Label("Build")
+    String build;
+
+    @Label("Strategy")
+    String strategy;
+
+    @Label("Action")
+    String action;
+
+    @Label("Delay")
+    @Description("Delay until the timer fires when scheduled, lateness of the timer when fired")
+    @Timespan(Timespan.MILLISECONDS)
+    long latency;
+
+    static void commit(@CheckForNull Run<?, ?> build, String strategy, String action, long latency) {
+        if (!TYPE.isEnabled()) {
+            return;
+        }
+        TimerEvent event = new TimerEvent();
+        if (event.shouldCommit()) {
+            event.build = (build != null) ? build.getExternalizableId() : null;
+            event.strategy = strategy;
+            event.action = action;
+            event.latency = latency;
+            event.commit();
+        }
+    }
+}
@@ -25,19 +25,37 @@
 package hudson.plugins.build_timeout.operations;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import hudson.Extension;
 import hudson.model.AbstractBuild;
 import hudson.model.AbstractProject;
 import hudson.model.BuildListener;
+import hudson.model.Cause;
+import hudson.model.Computer;
+import hudson.model.Job;
+import hudson.model.Node;
+import hudson.model.Queue;
+import hudson.model.queue.CauseOfBlockage;
+import hudson.model.queue.QueueTaskDispatcher;
 import hudson.plugins.build_timeout.BuildTimeOutOperation;
 import hudson.plugins.build_timeout.BuildTimeOutOperationDescriptor;
+import jenkins.model.Jenkins;
 
 import com.chikli.hudson.plugin.naginator.FixedDelay;
+import com.chikli.hudson.plugin.naginator.NaginatorCause;
 
 /**
  * Abort the build.
@@ -45,9 +63,59 @@ import com.chikli.hudson.plugin.naginator.FixedDelay;
 public class AbortAndRestartOperation extends BuildTimeOutOperation {
     
     private final String maxRestarts;
+    private int backoff;
+    private int maxBackoff = DEFAULT_MAX_BACKOFF;
+    private int restartBudget;
+    private boolean avoidNode;
     
     private static final Logger log = Logger.getLogger(AbortAndRestartOperation.class.getName());
     
+    public static final int DEFAULT_MAX_BACKOFF = 3600;
+    
+    /**
+     * Period restart budgets and node avoidance apply to.
+     */
+    private static final long WINDOW_MINUTES = Long.getLong(AbortAndRestartOperation.class.getName() + ".WINDOW_MINUTES", 60);
+    
+    /**
+     * Restarts per job, kept while the job has restarted in the last {@link #WINDOW_MINUTES}.
+     * Keyed by identity, so that a job deleted and created again with the same name starts afresh.
+     */
+    private static final Cache<Job<?, ?>, Restarts> restarts = CacheBuilder.newBuilder()
+            .weakKeys()
+            .expireAfterAccess(WINDOW_MINUTES, TimeUnit.MINUTES)
+            .build();
+    
+    /**
+     * Node to avoid per job, for the last restart if scheduled in the last {@link #WINDOW_MINUTES}.
+     */
+    private static final Cache<Job<?, ?>, String> avoidedNodes = CacheBuilder.newBuilder()
+            .weakKeys()
+            .expireAfterWrite(WINDOW_MINUTES, TimeUnit.MINUTES)
+            .build();
+    
+    /**
+     * Times restarts of a job were scheduled, over a sliding window.
+     */
+    private static final class Restarts {
+        private final Deque<Long> times = new ArrayDeque<>();
+        
+        /**
+         * @return number of restarts in the window including this one, or -1 if the budget is exhausted.
+         */
+        synchronized int record(long now, int budget) {
+            long since = now - TimeUnit.MINUTES.toMillis(WINDOW_MINUTES);
+            while (!times.isEmpty() && times.peekFirst() <= since) {
+                times.removeFirst();
+            }
+            if (budget > 0 && times.size() >= budget) {
+                return -1;
+            }
+            times.addLast(now);
+            return times.size();
+        }
+    }
+    
     /**
      * @return max restarts.
      */
@@ -60,19 +128,104 @@ public class AbortAndRestartOperation extends BuildTimeOutOperation {
         this.maxRestarts = maxRestarts;
     }
     
+    /**
+     * @return delay (seconds) before the first restart, doubled for each restart of the job
+     *     in the last hour. 0 to restart right away.
+     */
+    public int getBackoff() {
+        return backoff;
+    }
+    
+    @DataBoundSetter
+    public void setBackoff(int backoff) {
+        this.backoff = Math.max(0, backoff);
+    }
+    
+    /**
+     * @return maximum delay (seconds) before a restart.
+     */
+    public int getMaxBackoff() {
+        return maxBackoff;
+    }
+    
+    @DataBoundSetter
+    public void setMaxBackoff(int maxBackoff) {
+        this.maxBackoff = (maxBackoff > 0) ? maxBackoff : DEFAULT_MAX_BACKOFF;
+    }
+    
+    /**
+     * @return maximum restarts of the job in the last hour, whatever builds timed out. 0 means without a limit.
+     */
+    public int getRestartBudget() {
+        return restartBudget;
+    }
+    
+    @DataBoundSetter
+    public void setRestartBudget(int restartBudget) {
+        this.restartBudget = Math.max(0, restartBudget);
+    }
+    
+    /**
+     * @return whether the restarted build should avoid the node the build timed out on.
+     */
+    public boolean isAvoidNode() {
+        return avoidNode;
+    }
+    
+    @DataBoundSetter
+    public void setAvoidNode(boolean avoidNode) {
+        this.avoidNode = avoidNode;
+    }
+    
+    /**
+     * Checked once: plugins are not loaded dynamically often enough to check each time.
+     */
+    private static final class Naginator {
+        private static final boolean PRESENT = isPresent();
+        
+        private static boolean isPresent() {
+            try {
+                Class.forName("com.chikli.hudson.plugin.naginator.NaginatorScheduleAction");
+                return true;
+            } catch (ClassNotFoundException ex) {
+                log.log(Level.FINEST, "Naginator not available. ", ex);
+                return false;
+            }
+        }
+    }
+    
     private static boolean isPresent() {
+        return Naginator.PRESENT;
+    }
+    
+    /**
+     * Records a restart of the job.
+     * 
+     * @param job the job to restart
+     * @param now current time (epoch milliseconds)
+     * @return delay (seconds) before the restart, or -1 if the restart budget of the job is exhausted.
+     */
+    long nextDelay(Job<?, ?> job, long now) {
+        Restarts r;
         try {
-            Class.forName("com.chikli.hudson.plugin.naginator.NaginatorScheduleAction");
-            return true;
-        } catch (ClassNotFoundException ex) {
-            log.log(Level.FINEST, "Naginator not available. ", ex);
-            return false;
+            r = restarts.get(job, Restarts::new);
+        } catch (ExecutionException e) {
+            // never happens: Restarts::new does not throw.
+            throw new IllegalStateException(e);
+        }
+        int n = r.record(now, restartBudget);
+        if (n < 0) {
+            return -1;
         }
+        if (backoff <= 0) {
+            return 0;
+        }
+        // backoff * 2^(n-1), without overflowing.
+        int shift = Math.min(n - 1, 30);
+        return Math.min((long) backoff << shift, maxBackoff);
     }
     
     private void rescheduleBuild(AbstractBuild<?, ?> build, BuildListener listener) {
-        FixedDelay sd = new FixedDelay(0); //Reschedule now!
-        
         String maxRestartsStr = null;
         try {
             maxRestartsStr = build.getEnvironment(listener).expand(this.maxRestarts);
@@ -90,8 +243,33 @@ public class AbortAndRestartOperation extends BuildTimeOutOperation {
             e.printStackTrace(listener.getLogger());
             return;
         }
+        
+        Job<?, ?> job = build.getParent();
+        long delay = nextDelay(job, System.currentTimeMillis());
+        if (delay < 0) {
+            listener.getLogger().println(Messages.AbortAndRestartOperation_BudgetExhausted(restartBudget));
+            return;
+        }
+        FixedDelay sd = new FixedDelay((int) delay);
         build.addAction(new com.chikli.hudson.plugin.naginator.NaginatorScheduleAction(maxRestarts, sd, false));
         listener.getLogger().println(Messages.AbortAndRestartOperation_ScheduledRestart(maxRestarts));
+        if (delay > 0) {
+            listener.getLogger().println(Messages.AbortAndRestartOperation_Delayed(delay));
+        }
+        if (avoidNode) {
+            Node node = build.getBuiltOn();
+            if (node != null) {
+                avoidedNodes.put(job, node.getNodeName());
+            }
+        }
+    }
+    
+    /**
+     * @return name of the node restarts of the job should avoid, null if none.
+     */
+    @CheckForNull
+    static String getAvoidedNode(Job<?, ?> job) {
+        return avoidedNodes.getIfPresent(job);
     }
     
     /**
@@ -112,6 +290,64 @@ public class AbortAndRestartOperation extends BuildTimeOutOperation {
         return new AbortOperation().perform(build, listener, effectiveTimeout);
     }
    
+    /**
+     * Keeps restarted builds away from the node the timed out build ran on, when asked to.
+     * The restarts still run on that node when no other online node can take them.
+     */
+    @Extension(optional = true)
+    public static class NodeAvoidance extends QueueTaskDispatcher {
+        @Override
+        public CauseOfBlockage canTake(Node node, Queue.BuildableItem item) {
+            if (!(item.task instanceof AbstractProject)) {
+                return null;
+            }
+            String avoided = getAvoidedNode((AbstractProject<?, ?>) item.task);
+            if (avoided == null || !avoided.equals(node.getNodeName()) || !isRestart(item)
+                    || !canRunElsewhere(avoided, item)) {
+                return null;
+            }
+            return new CauseOfBlockage() {
+                @Override
+                public String getShortDescription() {
+                    return Messages.AbortAndRestartOperation_AvoidingNode(node.getDisplayName());
+                }
+            };
+        }
+        
+        private static boolean isRestart(Queue.BuildableItem item) {
+            for (Cause cause : item.getCauses()) {
+                if (cause instanceof NaginatorCause) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * @return whether an online node other than the avoided one can take the item.
+         */
+        private static boolean canRunElsewhere(String avoided, Queue.BuildableItem item) {
+            Jenkins jenkins = Jenkins.get();
+            if (canRunOn(jenkins, avoided, item)) {
+                return true;
+            }
+            for (Node other : jenkins.getNodes()) {
+                if (canRunOn(other, avoided, item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        private static boolean canRunOn(Node other, String avoided, Queue.BuildableItem item) {
+            if (avoided.equals(other.getNodeName()) || other.getNumExecutors() <= 0) {
+                return false;
+            }
+            Computer computer = other.toComputer();
+            return computer != null && computer.isOnline() && other.canTake(item) == null;
+        }
+    }
+    
     @Extension(optional = true)
     public static class DescriptorImpl extends BuildTimeOutOperationDescriptor {
         @Override
@@ -41,6 +41,7 @@ import jenkins.model.Jenkins;
 import net.sf.json.JSONObject;
 
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 import org.kohsuke.stapler.StaplerRequest2;
 
 import hudson.Extension;
@@ -56,6 +57,7 @@ import hudson.model.Run.RunnerAbortedException;
 import hudson.plugins.build_timeout.BuildTimeOutOperation;
 import hudson.plugins.build_timeout.BuildTimeOutOperationDescriptor;
 import hudson.plugins.build_timeout.BuildTimeOutUtility;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
 import hudson.remoting.Channel;
 import hudson.tasks.BuildStep;
 import hudson.tasks.BuildStepDescriptor;
@@ -76,6 +78,7 @@ public class BuildStepOperation extends BuildTimeOutOperation {
     private final BuildStep buildstep;
     private final boolean continueEvenFailed;
     private final boolean createLauncher;
+    private boolean prepareLauncher;
     
     /**
      * @return build step to perform.
@@ -109,6 +112,19 @@ public class BuildStepOperation extends BuildTimeOutOperation {
         this.createLauncher = createLauncher;
     }
     
+    /**
+     * @return whether to use the launcher prepared when the build started,
+     *     rather than creating one at timeout.
+     */
+    public boolean isPrepareLauncher() {
+        return prepareLauncher;
+    }
+    
+    @DataBoundSetter
+    public void setPrepareLauncher(boolean prepareLauncher) {
+        this.prepareLauncher = prepareLauncher;
+    }
+    
     @Deprecated
     public BuildStepOperation(BuildStep buildstep, boolean continueEvenFailed) {
         this(buildstep, continueEvenFailed, false);
@@ -149,6 +165,14 @@ public class BuildStepOperation extends BuildTimeOutOperation {
         if(!isCreateLauncher()) {
             return new DummyLauncher();
         }
+        
+        if (isPrepareLauncher()) {
+            BuildTimeoutWrapper.EnvironmentImpl env = build.getEnvironments().get(BuildTimeoutWrapper.EnvironmentImpl.class);
+            Launcher prepared = (env != null) ? env.getPreparedLauncher() : null;
+            if (prepared != null) {
+                return prepared;
+            }
+        }
 
         Node builtOn = build.getBuiltOn();
         if (builtOn == null) {
@@ -227,7 +251,9 @@ public class BuildStepOperation extends BuildTimeOutOperation {
             BuildStep buildstep = BuildTimeOutUtility.bindJSONWithDescriptor(req, formData, "buildstep", BuildStep.class);
             boolean continueEvenFailed = formData.getBoolean("continueEvenFailed");
             boolean createLauncher = formData.getBoolean("createLauncher");
-            return new BuildStepOperation(buildstep, continueEvenFailed, createLauncher);
+            BuildStepOperation op = new BuildStepOperation(buildstep, continueEvenFailed, createLauncher);
+            op.setPrepareLauncher(formData.optBoolean("prepareLauncher"));
+            return op;
         }
         
         /**
@@ -0,0 +1,289 @@
+package hudson.plugins.build_timeout.operations;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Node;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.BuildTimeOutOperationDescriptor;
+import hudson.remoting.VirtualChannel;
+import hudson.util.FormValidation;
+import hudson.util.ProcessTree;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Capture what the build was doing when it timed out, to be placed before {@link AbortOperation}.
+ * 
+ * Collects the processes of the build with their CPU times, and thread dumps of Java processes
+ * with {@code jcmd}, on the node of the build with a single remoting call.
+ * The capture is limited in time and in size, and written to {@value #FILE_NAME} in the build directory.
+ */
+public class CaptureDiagnosticsOperation extends BuildTimeOutOperation {
+    public static final String FILE_NAME = "timeout-diagnostics.txt";
+    public static final int DEFAULT_TIME_LIMIT = 30;
+    public static final int DEFAULT_MAX_SIZE = 1024;
+
+    private final int timeLimit;
+    private final int maxSize;
+
+    /**
+     * @param timeLimit seconds the capture may take.
+     * @param maxSize maximum size of the capture in kilobytes.
+     */
+    @DataBoundConstructor
+    public CaptureDiagnosticsOperation(int timeLimit, int maxSize) {
+        this.timeLimit = (timeLimit > 0) ? timeLimit : DEFAULT_TIME_LIMIT;
+        this.maxSize = (maxSize > 0) ? maxSize : DEFAULT_MAX_SIZE;
+    }
+
+    /**
+     * @return seconds the capture may take.
+     */
+    public int getTimeLimit() {
+        return timeLimit;
+    }
+
+    /**
+     * @return maximum size of the capture in kilobytes.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * The capture is bounded by its own time limit.
+     */
+    @Override
+    public long getExecutionBudget() {
+        return SECONDS.toMillis(timeLimit + 5);
+    }
+
+    /**
+     * @param build
+     * @param listener
+     * @param effectiveTimeout
+     * @return
+     * @see hudson.plugins.build_timeout.BuildTimeOutOperation#perform(hudson.model.AbstractBuild, hudson.model.BuildListener, long)
+     */
+    @Override
+    public boolean perform(AbstractBuild<?, ?> build, BuildListener listener, long effectiveTimeout) {
+        Node node = build.getBuiltOn();
+        VirtualChannel channel = (node != null) ? node.getChannel() : null;
+        if (channel == null) {
+            listener.error(Messages.CaptureDiagnosticsOperation_NoNode());
+            return true;
+        }
+        Future<byte[]> capture = null;
+        try {
+            capture = channel.callAsync(new Capture(build.getCharacteristicEnvVars(), SECONDS.toMillis(timeLimit), maxSize * 1024));
+            // leaves a little time for the transfer.
+            byte[] diagnostics = capture.get(timeLimit + 2, SECONDS);
+            File file = new File(build.getRootDir(), FILE_NAME);
+            Files.write(file.toPath(), diagnostics);
+            listener.getLogger().println(Messages.CaptureDiagnosticsOperation_Written(file.getName(), diagnostics.length / 1024));
+        } catch (TimeoutException e) {
+            capture.cancel(true);
+            listener.error(Messages.CaptureDiagnosticsOperation_TimedOut(timeLimit));
+        } catch (IOException | ExecutionException e) {
+            listener.error(Messages.CaptureDiagnosticsOperation_Failed());
+            e.printStackTrace(listener.getLogger());
+        } catch (InterruptedException e) {
+            if (capture != null) {
+                capture.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    /**
+     * Runs on the node of the build.
+     */
+    static final class Capture extends MasterToSlaveCallable<byte[], IOException> {
+        private static final long serialVersionUID = 1L;
+        /**
+         * Room kept below the size limit for the line telling why the capture stopped.
+         */
+        static final int TRAILER_SIZE = 64;
+
+        private final Map<String, String> envVars;
+        private final long timeLimitMillis;
+        private final int maxBytes;
+
+        Capture(Map<String, String> envVars, long timeLimitMillis, int maxBytes) {
+            this.envVars = envVars;
+            this.timeLimitMillis = timeLimitMillis;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public byte[] call() throws IOException {
+            long deadline = System.nanoTime() + MILLISECONDS.toNanos(timeLimitMillis);
+            CappedOutputStream capped = new CappedOutputStream(Math.max(0, maxBytes - TRAILER_SIZE));
+            PrintStream out = new PrintStream(capped, false, StandardCharsets.UTF_8.name());
+
+            List<ProcessHandle> processes = new ArrayList<>();
+            for (ProcessTree.OSProcess p : ProcessTree.get()) {
+                if (p.hasMatchingEnvVars(envVars)) {
+                    ProcessHandle.of(p.getPid()).ifPresent(processes::add);
+                }
+            }
+            out.printf("Processes of the build (%d):%n", processes.size());
+            out.println("PID\tPPID\tCPU(ms)\tCOMMAND");
+            for (ProcessHandle p : processes) {
+                ProcessHandle.Info info = p.info();
+                out.printf("%d\t%s\t%s\t%s%n",
+                        p.pid(),
+                        p.parent().map(parent -> Long.toString(parent.pid())).orElse("?"),
+                        info.totalCpuDuration().map(Duration::toMillis).map(String::valueOf).orElse("?"),
+                        info.commandLine().orElse(info.command().orElse("?")));
+            }
+
+            for (ProcessHandle p : processes) {
+                if (capped.isFull() || System.nanoTime() >= deadline) {
+                    break;
+                }
+                File jcmd = findJcmd(p);
+                if (jcmd == null) {
+                    continue;
+                }
+                out.printf("%nThread dump of %d:%n", p.pid());
+                out.flush();
+                threadDump(jcmd, p.pid(), capped, deadline);
+            }
+            out.flush();
+            if (capped.isFull()) {
+                capped.trailer(String.format("%n... truncated at %d bytes%n", maxBytes));
+            } else if (System.nanoTime() >= deadline) {
+                capped.trailer(String.format("%n... stopped after %d ms%n", timeLimitMillis));
+            }
+            return capped.toByteArray();
+        }
+
+        /**
+         * @return {@code jcmd} next to the {@code java} command of the process, null if not a Java process.
+         */
+        private static File findJcmd(ProcessHandle p) {
+            String command = p.info().command().orElse(null);
+            if (command == null) {
+                return null;
+            }
+            File java = new File(command);
+            String name = java.getName();
+            if (!name.equals("java") && !name.equals("java.exe")) {
+                return null;
+            }
+            File jcmd = new File(java.getParentFile(), name.endsWith(".exe") ? "jcmd.exe" : "jcmd");
+            return jcmd.canExecute() ? jcmd : null;
+        }
+
+        private static void threadDump(File jcmd, long pid, OutputStream out, long deadline) throws IOException {
+            Process process = new ProcessBuilder(jcmd.getPath(), Long.toString(pid), "Thread.print")
+                    .redirectErrorStream(true)
+                    .start();
+            try (InputStream in = process.getInputStream()) {
+                // read in the background so that a hung jcmd doesn't block past the deadline.
+                Thread reader = new Thread(() -> {
+                    byte[] buf = new byte[8192];
+                    try {
+                        for (int n = in.read(buf); n >= 0; n = in.read(buf)) {
+                            out.write(buf, 0, n);
+                        }
+                    } catch (IOException e) {
+                        // jcmd was destroyed
+                    }
+                }, "build-timeout-jcmd-" + pid);
+                reader.setDaemon(true);
+                reader.start();
+                if (!process.waitFor(Math.max(0, deadline - System.nanoTime()), NANOSECONDS)) {
+                    process.destroyForcibly();
+                }
+                reader.join(SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Keeps at most the given number of bytes, dropping the rest.
+     */
+    static final class CappedOutputStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final int max;
+
+        CappedOutputStream(int max) {
+            this.max = max;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if (buffer.size() < max) {
+                buffer.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            buffer.write(b, off, Math.min(len, max - buffer.size()));
+        }
+
+        synchronized boolean isFull() {
+            return buffer.size() >= max;
+        }
+
+        /**
+         * Writes past the limit, for the last line of the output.
+         *
+         * @param line the line, kept whole.
+         */
+        synchronized void trailer(String line) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            buffer.write(bytes, 0, bytes.length);
+        }
+
+        synchronized byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends BuildTimeOutOperationDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.CaptureDiagnosticsOperation_DisplayName();
+        }
+
+        public FormValidation doCheckTimeLimit(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        public FormValidation doCheckMaxSize(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package hudson.plugins.build_timeout.operations;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import hudson.model.Run;
+import jenkins.util.Timer;
+
+/**
+ * Sets build descriptions in the background, so that saving {@code build.xml}
+ * does not happen on the thread firing time outs.
+ * 
+ * Descriptions queued for the same build before they are written are coalesced:
+ * only the last one is written.
+ */
+final class DeferredDescriptionWriter {
+    private static final Logger LOG = Logger.getLogger(DeferredDescriptionWriter.class.getName());
+
+    /**
+     * Delay before writing, to coalesce subsequent updates.
+     */
+    private static final long DELAY_MILLIS = Long.getLong(DeferredDescriptionWriter.class.getName() + ".DELAY_MILLIS", 500);
+
+    private static final ConcurrentMap<Run<?, ?>, String> pending = new ConcurrentHashMap<>();
+
+    private DeferredDescriptionWriter() {
+    }
+
+    static void setDescription(Run<?, ?> build, String description) {
+        if (pending.put(build, description) == null) {
+            Timer.get().schedule(DeferredDescriptionWriter::flush, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static synchronized void flush() {
+        for (Run<?, ?> build : pending.keySet()) {
+            // an update arriving after this point schedules another flush.
+            String description = pending.remove(build);
+            if (description == null) {
+                // written by a concurrent flush.
+                continue;
+            }
+            try {
+                build.setDescription(description);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, String.format("failed to write the description of %s", build.getExternalizableId()), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package hudson.plugins.build_timeout.operations;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+
+import hudson.Extension;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Executor;
+import hudson.model.Node;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.BuildTimeOutOperationDescriptor;
+import hudson.util.FormValidation;
+import jenkins.util.Timer;
+import org.kohsuke.stapler.QueryParameter;
+
+/**
+ * Abort the build, and escalate until the build actually stops.
+ * 
+ * The build is interrupted as {@link AbortOperation} does. If it is still running after the grace period,
+ * it is interrupted again up to {@link #getMaxInterrupts()} times, then its processes are killed.
+ * Each stage is written to the build log.
+ */
+public class EscalatingAbortOperation extends BuildTimeOutOperation {
+    private static final Logger LOG = Logger.getLogger(EscalatingAbortOperation.class.getName());
+
+    public static final int DEFAULT_GRACE_PERIOD = 30;
+    public static final int DEFAULT_MAX_INTERRUPTS = 3;
+
+    private final int gracePeriod;
+    private final int maxInterrupts;
+    private final boolean killProcesses;
+
+    /**
+     * @param gracePeriod seconds to wait for the build to stop before the next stage.
+     * @param maxInterrupts how many times the build is interrupted.
+     * @param killProcesses whether to kill the processes of the build if interrupts are not enough.
+     */
+    @DataBoundConstructor
+    public EscalatingAbortOperation(int gracePeriod, int maxInterrupts, boolean killProcesses) {
+        this.gracePeriod = (gracePeriod > 0) ? gracePeriod : DEFAULT_GRACE_PERIOD;
+        this.maxInterrupts = (maxInterrupts > 0) ? maxInterrupts : DEFAULT_MAX_INTERRUPTS;
+        this.killProcesses = killProcesses;
+    }
+
+    /**
+     * @return seconds to wait for the build to stop before the next stage.
+     */
+    public int getGracePeriod() {
+        return gracePeriod;
+    }
+
+    /**
+     * @return how many times the build is interrupted.
+     */
+    public int getMaxInterrupts() {
+        return maxInterrupts;
+    }
+
+    /**
+     * @return whether to kill the processes of the build if interrupts are not enough.
+     */
+    public boolean isKillProcesses() {
+        return killProcesses;
+    }
+
+    /**
+     * @param build
+     * @param listener
+     * @param effectiveTimeout
+     * @return
+     * @see hudson.plugins.build_timeout.BuildTimeOutOperation#perform(hudson.model.AbstractBuild, hudson.model.BuildListener, long)
+     */
+    @Override
+    public boolean perform(AbstractBuild<?, ?> build, BuildListener listener, long effectiveTimeout) {
+        boolean result = new AbortOperation().perform(build, listener, effectiveTimeout);
+        new Escalation(build, listener).schedule();
+        return result;
+    }
+
+    /**
+     * Checks the build after each grace period, and goes to the next stage if it is still running.
+     */
+    private final class Escalation implements Runnable {
+        private final AbstractBuild<?, ?> build;
+        private final BuildListener listener;
+        private final long startedAt = System.currentTimeMillis();
+        private int interrupts = 1;
+        private boolean killed;
+
+        private Escalation(AbstractBuild<?, ?> build, BuildListener listener) {
+            this.build = build;
+            this.listener = listener;
+        }
+
+        private void schedule() {
+            Timer.get().schedule(this, gracePeriod, SECONDS);
+        }
+
+        private int getStage() {
+            return interrupts + (killed ? 1 : 0);
+        }
+
+        @Override
+        public void run() {
+            if (!build.isBuilding()) {
+                LOG.log(Level.FINE, "{0} stopped after escalation stage {1}", new Object[] {build.getExternalizableId(), getStage()});
+                return;
+            }
+            long elapsed = SECONDS.convert(System.currentTimeMillis() - startedAt, MILLISECONDS);
+            if (interrupts < maxInterrupts) {
+                ++interrupts;
+                listener.getLogger().println(Messages.EscalatingAbortOperation_Interrupt(elapsed, getStage()));
+                Executor e = build.getExecutor();
+                if (e != null) {
+                    e.interrupt(Result.ABORTED);
+                }
+                schedule();
+            } else if (killProcesses && !killed) {
+                killed = true;
+                listener.getLogger().println(Messages.EscalatingAbortOperation_Kill(elapsed, getStage()));
+                kill();
+                schedule();
+            } else {
+                listener.error(Messages.EscalatingAbortOperation_GiveUp(elapsed, getStage()));
+                LOG.log(Level.WARNING, "{0} is still running after {1} escalation stages", new Object[] {build.getExternalizableId(), getStage()});
+            }
+        }
+
+        private void kill() {
+            Node node = build.getBuiltOn();
+            if (node == null || node.toComputer() == null || node.toComputer().getChannel() == null) {
+                listener.error("The node of the build is not available. Cannot kill processes.");
+                return;
+            }
+            try {
+                Launcher launcher = node.createLauncher(listener);
+                launcher.kill(build.getCharacteristicEnvVars());
+            } catch (IOException e) {
+                listener.error("Failed to kill processes.");
+                e.printStackTrace(listener.getLogger());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends BuildTimeOutOperationDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.EscalatingAbortOperation_DisplayName();
+        }
+
+        public FormValidation doCheckGracePeriod(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+
+        public FormValidation doCheckMaxInterrupts(@QueryParameter String value) {
+            return FormValidation.validatePositiveInteger(value);
+        }
+    }
+}
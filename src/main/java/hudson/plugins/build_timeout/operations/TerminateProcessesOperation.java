@@ -0,0 +1,260 @@
+package hudson.plugins.build_timeout.operations;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.QueryParameter;
+
+import hudson.Extension;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Node;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.BuildTimeOutOperationDescriptor;
+import hudson.remoting.VirtualChannel;
+import hudson.util.FormValidation;
+import hudson.util.ListBoxModel;
+import hudson.util.ProcessTree;
+import jenkins.security.MasterToSlaveCallable;
+
+/**
+ * Terminate the processes of the build gracefully.
+ * 
+ * Sends a soft signal to the processes started by the build, waits for them to exit,
+ * then kills the ones still running.
+ * All of that is done on the node of the build with a single remoting call.
+ * 
+ * Should be placed before {@link AbortOperation}, as aborting kills the processes right away.
+ */
+public class TerminateProcessesOperation extends BuildTimeOutOperation {
+    public static final String DEFAULT_SIGNAL = "TERM";
+    public static final int DEFAULT_GRACE_PERIOD = 10;
+
+    /**
+     * Signals which can be sent, without the {@code SIG} prefix.
+     */
+    static final List<String> SIGNALS = Collections.unmodifiableList(Arrays.asList("TERM", "INT", "HUP", "QUIT", "USR1", "USR2"));
+
+    /**
+     * Time to wait for processes to exit after {@code SIGKILL}.
+     */
+    private static final long KILL_WAIT_MILLIS = 1000;
+
+    private final String signal;
+    private final int gracePeriod;
+
+    /**
+     * @param signal signal to send first, e.g. {@code TERM}.
+     * @param gracePeriod seconds to wait for the processes to exit before killing them.
+     */
+    @DataBoundConstructor
+    public TerminateProcessesOperation(String signal, int gracePeriod) {
+        String s = (signal != null) ? signal.trim().toUpperCase(Locale.ENGLISH) : DEFAULT_SIGNAL;
+        if (s.startsWith("SIG")) {
+            s = s.substring(3);
+        }
+        this.signal = SIGNALS.contains(s) ? s : DEFAULT_SIGNAL;
+        this.gracePeriod = (gracePeriod >= 0) ? gracePeriod : DEFAULT_GRACE_PERIOD;
+    }
+
+    /**
+     * @return signal to send first, without the {@code SIG} prefix.
+     */
+    public String getSignal() {
+        return signal;
+    }
+
+    /**
+     * @return seconds to wait for the processes to exit before killing them.
+     */
+    public int getGracePeriod() {
+        return gracePeriod;
+    }
+
+    /**
+     * Leaves time for the grace period and the remoting call.
+     */
+    @Override
+    public long getExecutionBudget() {
+        long budget = super.getExecutionBudget();
+        return (budget > 0) ? budget + SECONDS.toMillis(gracePeriod) : budget;
+    }
+
+    /**
+     * @param build
+     * @param listener
+     * @param effectiveTimeout
+     * @return
+     * @see hudson.plugins.build_timeout.BuildTimeOutOperation#perform(hudson.model.AbstractBuild, hudson.model.BuildListener, long)
+     */
+    @Override
+    public boolean perform(AbstractBuild<?, ?> build, BuildListener listener, long effectiveTimeout) {
+        Node node = build.getBuiltOn();
+        VirtualChannel channel = (node != null) ? node.getChannel() : null;
+        if (channel == null) {
+            listener.error(Messages.TerminateProcessesOperation_NoNode());
+            return true;
+        }
+        Report report;
+        try {
+            report = channel.call(new Terminate(build.getCharacteristicEnvVars(), signal, SECONDS.toMillis(gracePeriod)));
+        } catch (IOException e) {
+            listener.error(Messages.TerminateProcessesOperation_Failed());
+            e.printStackTrace(listener.getLogger());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+        listener.getLogger().println(Messages.TerminateProcessesOperation_Signalled(signal, report.signalled.size()));
+        if (!report.survivedSignal.isEmpty()) {
+            listener.getLogger().println(Messages.TerminateProcessesOperation_SurvivedSignal(
+                    gracePeriod, signal, String.join(", ", report.survivedSignal)));
+        }
+        if (!report.survivedKill.isEmpty()) {
+            listener.error(Messages.TerminateProcessesOperation_SurvivedKill(String.join(", ", report.survivedKill)));
+        }
+        return true;
+    }
+
+    /**
+     * Processes of each stage, as {@code pid (command)}.
+     */
+    static final class Report implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        final List<String> signalled = new ArrayList<>();
+        final List<String> survivedSignal = new ArrayList<>();
+        final List<String> survivedKill = new ArrayList<>();
+    }
+
+    /**
+     * Runs on the node of the build.
+     */
+    static final class Terminate extends MasterToSlaveCallable<Report, IOException> {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<String, String> envVars;
+        private final String signal;
+        private final long waitMillis;
+
+        Terminate(Map<String, String> envVars, String signal, long waitMillis) {
+            this.envVars = envVars;
+            this.signal = signal;
+            this.waitMillis = waitMillis;
+        }
+
+        @Override
+        public Report call() throws IOException {
+            Report report = new Report();
+            List<ProcessHandle> processes = new ArrayList<>();
+            for (ProcessTree.OSProcess p : ProcessTree.get()) {
+                if (p.hasMatchingEnvVars(envVars)) {
+                    ProcessHandle.of(p.getPid()).ifPresent(processes::add);
+                }
+            }
+            if (processes.isEmpty()) {
+                return report;
+            }
+            describe(processes, report.signalled);
+
+            signal(processes);
+            List<ProcessHandle> alive = await(processes, waitMillis);
+            describe(alive, report.survivedSignal);
+
+            for (ProcessHandle p : alive) {
+                p.destroyForcibly();
+            }
+            describe(await(alive, KILL_WAIT_MILLIS), report.survivedKill);
+            return report;
+        }
+
+        private void signal(List<ProcessHandle> processes) throws IOException {
+            if (DEFAULT_SIGNAL.equals(signal) || File.pathSeparatorChar == ';') {
+                // SIGTERM on Unix. Windows has no signals.
+                for (ProcessHandle p : processes) {
+                    p.destroy();
+                }
+                return;
+            }
+            List<String> command = new ArrayList<>(processes.size() + 2);
+            command.add("kill");
+            command.add("-" + signal);
+            for (ProcessHandle p : processes) {
+                command.add(Long.toString(p.pid()));
+            }
+            try {
+                // a process may have exited meanwhile, the others are signalled anyway.
+                new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start().waitFor();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * @return processes still running after waiting.
+         */
+        private static List<ProcessHandle> await(List<ProcessHandle> processes, long millis) {
+            CompletableFuture<?>[] exits = new CompletableFuture<?>[processes.size()];
+            for (int i = 0; i < exits.length; ++i) {
+                exits[i] = processes.get(i).onExit();
+            }
+            try {
+                CompletableFuture.allOf(exits).get(millis, MILLISECONDS);
+            } catch (TimeoutException | ExecutionException e) {
+                // some are still running
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<ProcessHandle> alive = new ArrayList<>();
+            for (ProcessHandle p : processes) {
+                if (p.isAlive()) {
+                    alive.add(p);
+                }
+            }
+            return alive;
+        }
+
+        private static void describe(List<ProcessHandle> processes, List<String> to) {
+            for (ProcessHandle p : processes) {
+                Optional<String> command = p.info().command();
+                to.add(command.isPresent() ? p.pid() + " (" + command.get() + ")" : Long.toString(p.pid()));
+            }
+        }
+    }
+
+    @Extension
+    public static class DescriptorImpl extends BuildTimeOutOperationDescriptor {
+        @Override
+        public String getDisplayName() {
+            return Messages.TerminateProcessesOperation_DisplayName();
+        }
+
+        public ListBoxModel doFillSignalItems() {
+            ListBoxModel m = new ListBoxModel();
+            for (String s : SIGNALS) {
+                m.add("SIG" + s, s);
+            }
+            return m;
+        }
+
+        public FormValidation doCheckGracePeriod(@QueryParameter String value) {
+            return FormValidation.validateNonNegativeInteger(value);
+        }
+    }
+}
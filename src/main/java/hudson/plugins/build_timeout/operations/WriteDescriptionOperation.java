@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.text.MessageFormat;
 
 import org.kohsuke.stapler.DataBoundConstructor;
+import org.kohsuke.stapler.DataBoundSetter;
 
 import hudson.Extension;
 import hudson.model.AbstractBuild;
@@ -43,6 +44,7 @@ import hudson.plugins.build_timeout.BuildTimeOutOperationDescriptor;
  */
 public class WriteDescriptionOperation extends BuildTimeOutOperation {
     private final String description;
+    private boolean deferred;
     
     /**
      * @return description to set.
@@ -56,20 +58,41 @@ public class WriteDescriptionOperation extends BuildTimeOutOperation {
         this.description = description;
     }
     
+    /**
+     * @return whether the description is written in the background,
+     *     coalescing subsequent updates of the same build.
+     */
+    public boolean isDeferred() {
+        return deferred;
+    }
+    
+    @DataBoundSetter
+    public void setDeferred(boolean deferred) {
+        this.deferred = deferred;
+    }
+    
     @Override
     public boolean perform(AbstractBuild<?, ?> build, BuildListener listener, long effectiveTimeout) {
         // timed out
         long effectiveTimeoutMinutes = MINUTES.convert(effectiveTimeout,MILLISECONDS);
         String msg = getDescription();
-        try {
-            msg = build.getEnvironment(listener).expand(msg);
-        } catch (IOException | InterruptedException e) {
-            listener.getLogger().println(String.format("failed to expand string: %s", msg));
-            e.printStackTrace(listener.getLogger());
+        if (msg != null && msg.indexOf('$') >= 0) {
+            // building the environment is costly: only when there are variables to expand.
+            try {
+                msg = build.getEnvironment(listener).expand(msg);
+            } catch (IOException | InterruptedException e) {
+                listener.getLogger().println(String.format("failed to expand string: %s", msg));
+                e.printStackTrace(listener.getLogger());
+            }
         }
 
         msg = MessageFormat.format(msg, effectiveTimeoutMinutes);
         
+        if (isDeferred()) {
+            DeferredDescriptionWriter.setDescription(build, msg);
+            return true;
+        }
+        
         try {
             build.setDescription(msg);
         } catch (IOException e) {
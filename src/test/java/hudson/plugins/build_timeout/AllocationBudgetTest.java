@@ -0,0 +1,181 @@
+package hudson.plugins.build_timeout;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.Descriptor;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.build_timeout.impl.AbsoluteTimeOutStrategy;
+import hudson.plugins.build_timeout.impl.NoActivityTimeOutStrategy;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+import hudson.util.OneShotEvent;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Bytes allocated per operation on the hot paths, measured with the allocation counter of the current thread.
+ * A path going over its budget usually means a new per line or per reschedule object, log message or boxing.
+ */
+@WithJenkins
+class AllocationBudgetTest {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 100_000;
+
+    /**
+     * Per line, for a strategy capturing activity only: the line is passed through as is.
+     */
+    static final long CAPTURE_LINE_BUDGET = 0;
+    /**
+     * Per line, for {@link NoActivityTimeOutStrategy}, which looks up the environment and reschedules.
+     */
+    static final long NO_ACTIVITY_LINE_BUDGET = 1024;
+    /**
+     * Per {@link BuildTimeoutWrapper.EnvironmentImpl#reschedule()}: a timer task and the index entry.
+     */
+    static final long RESCHEDULE_BUDGET = 512;
+    /**
+     * Per {@link BuildTimeOutStrategy#getTimeOut(AbstractBuild, BuildListener)} without macros.
+     */
+    static final long GET_TIMEOUT_BUDGET = 0;
+
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    private static long allocatedPerOperation(Operation operation) throws Exception {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threads;
+        assumeTrue(allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled());
+
+        for (int i = 0; i < WARMUP; ++i) {
+            operation.run();
+        }
+        long before = allocation.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; ++i) {
+            operation.run();
+        }
+        return (allocation.getCurrentThreadAllocatedBytes() - before) / ITERATIONS;
+    }
+
+    /**
+     * Captures the console without doing anything with it.
+     */
+    static class ActivityOnlyStrategy extends BuildTimeOutStrategy {
+        long lines;
+
+        @Override
+        public long getTimeOut(AbstractBuild<?, ?> build, BuildListener listener) {
+            return 3600 * 1000L;
+        }
+
+        @Override
+        public void onWrite(AbstractBuild<?, ?> build, byte[] b, int length) {
+            ++lines;
+        }
+
+        @Override
+        public Descriptor<BuildTimeOutStrategy> getDescriptor() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static FreeStyleBuild startBuild(JenkinsRule j, BuildTimeOutStrategy strategy, OneShotEvent done) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                strategy,
+                Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                null));
+        OneShotEvent started = new OneShotEvent();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+                started.signal();
+                done.block();
+                return true;
+            }
+        });
+        FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+        started.block();
+        return b;
+    }
+
+    private static byte[] line() {
+        byte[] line = new byte[80];
+        Arrays.fill(line, (byte) 'x');
+        line[line.length - 1] = '\n';
+        return line;
+    }
+
+    @Test
+    void captureLine(JenkinsRule j) throws Exception {
+        OneShotEvent done = new OneShotEvent();
+        ActivityOnlyStrategy strategy = new ActivityOnlyStrategy();
+        FreeStyleBuild b = startBuild(j, strategy, done);
+        try {
+            OutputStream out = b.getProject().getBuildWrappersList().get(BuildTimeoutWrapper.class)
+                    .decorateLogger(b, OutputStream.nullOutputStream());
+            byte[] line = line();
+            long allocated = allocatedPerOperation(() -> out.write(line, 0, line.length));
+            assertEquals(WARMUP + ITERATIONS, strategy.lines);
+            assertTrue(allocated <= CAPTURE_LINE_BUDGET, allocated + " bytes per line");
+        } finally {
+            done.signal();
+            j.waitForCompletion(b);
+        }
+    }
+
+    @Test
+    void noActivityLine(JenkinsRule j) throws Exception {
+        OneShotEvent done = new OneShotEvent();
+        FreeStyleBuild b = startBuild(j, new NoActivityTimeOutStrategy(3600), done);
+        try {
+            OutputStream out = b.getProject().getBuildWrappersList().get(BuildTimeoutWrapper.class)
+                    .decorateLogger(b, OutputStream.nullOutputStream());
+            byte[] line = line();
+            long allocated = allocatedPerOperation(() -> out.write(line, 0, line.length));
+            assertTrue(allocated <= NO_ACTIVITY_LINE_BUDGET, allocated + " bytes per line");
+        } finally {
+            done.signal();
+            j.waitForCompletion(b);
+        }
+    }
+
+    @Test
+    void reschedule(JenkinsRule j) throws Exception {
+        OneShotEvent done = new OneShotEvent();
+        FreeStyleBuild b = startBuild(j, new NoActivityTimeOutStrategy(3600), done);
+        try {
+            BuildTimeoutWrapper.EnvironmentImpl env = b.getEnvironments().get(BuildTimeoutWrapper.EnvironmentImpl.class);
+            long allocated = allocatedPerOperation(env::reschedule);
+            assertTrue(allocated <= RESCHEDULE_BUDGET, allocated + " bytes per reschedule");
+        } finally {
+            done.signal();
+            j.waitForCompletion(b);
+        }
+    }
+
+    @Test
+    void getTimeOut() throws Exception {
+        AbstractBuild<?, ?> build = mock(AbstractBuild.class);
+        BuildListener listener = mock(BuildListener.class);
+        for (BuildTimeOutStrategy strategy : Arrays.asList(new AbsoluteTimeOutStrategy("3"), new NoActivityTimeOutStrategy("180"))) {
+            long allocated = allocatedPerOperation(() -> strategy.getTimeOut(build, listener));
+            assertTrue(allocated <= GET_TIMEOUT_BUDGET, allocated + " bytes per getTimeOut() of " + strategy);
+        }
+    }
+}
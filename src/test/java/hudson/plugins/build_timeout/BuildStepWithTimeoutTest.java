@@ -1,9 +1,13 @@
 package hudson.plugins.build_timeout;
 
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
 import hudson.model.Cause;
 import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.Result;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics;
 import hudson.plugins.build_timeout.operations.AbortOperation;
 import hudson.plugins.build_timeout.operations.FailOperation;
 import hudson.tasks.Builder;
@@ -17,6 +21,8 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 @WithJenkins
 class BuildStepWithTimeoutTest {
 
@@ -69,6 +75,42 @@ class BuildStepWithTimeoutTest {
         j.assertLogNotContains(FakeBuildStep.FAKE_BUILD_STEP_OUTPUT, build);
     }
 
+    @Test
+    void timeoutPerformsOperationsAfterFailingOne(JenkinsRule j) throws Exception {
+        final FreeStyleProject project = j.createFreeStyleProject();
+        final List<BuildTimeOutOperation> operations = new ArrayList<>();
+        operations.add(new FailingOperation());
+        operations.add(new AbortOperation());
+        project.getBuildersList().add(new BuildStepWithTimeout(new FakeBuildStep(HUGE_DELAY),
+                new QuickBuildTimeOutStrategy(500), operations));
+
+        final FreeStyleBuild build = project.scheduleBuild2(0, new Cause.UserIdCause()).get();
+
+        j.assertBuildStatus(Result.ABORTED, build);
+        j.assertLogNotContains(FakeBuildStep.FAKE_BUILD_STEP_OUTPUT, build);
+    }
+
+    @Test
+    void timerIsReleasedWhenNotScheduled(JenkinsRule j) throws Exception {
+        long live = TimeOutMetrics.get().getLiveTimeOuts();
+        final FreeStyleProject project = j.createFreeStyleProject();
+        // too long for java.util.Timer, as when the time out cannot be evaluated.
+        project.getBuildersList().add(new BuildStepWithTimeout(new FakeBuildStep(TINY_DELAY),
+                new QuickBuildTimeOutStrategy(Long.MAX_VALUE), null));
+
+        final FreeStyleBuild build = project.scheduleBuild2(0, new Cause.UserIdCause()).get();
+
+        j.assertBuildStatus(Result.FAILURE, build);
+        assertEquals(live, TimeOutMetrics.get().getLiveTimeOuts());
+    }
+
+    private static class FailingOperation extends BuildTimeOutOperation {
+        @Override
+        public boolean perform(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener, long effectiveTimeout) {
+            return false;
+        }
+    }
+
     private FreeStyleProject createProjectWithBuildStepWithTimeout(long delay, BuildTimeOutOperation operation, JenkinsRule j) throws IOException {
         final FreeStyleProject project = j.createFreeStyleProject();
         final List<BuildTimeOutOperation> operations;
@@ -0,0 +1,175 @@
+package hudson.plugins.build_timeout;
+
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics;
+import hudson.security.ACL;
+import jenkins.model.Jenkins;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class OperationWatchdogTest {
+    @Mock
+    private AbstractBuild<?, ?> build;
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private BuildListener listener;
+
+    @AfterEach
+    void restore() {
+        OperationWatchdog.STOP_ON_OVERRUN = false;
+    }
+
+    private boolean performAll(BuildTimeOutOperation... operations) throws Exception {
+        return OperationWatchdog.performAll(Arrays.asList(operations), build, listener, 1).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void returnsResultOfOperation() throws Exception {
+        assertTrue(performAll(new ResultOp(true)));
+        assertFalse(performAll(new ResultOp(false)));
+    }
+
+    @Test
+    void stopsAtFirstFailure() throws Exception {
+        ResultOp last = new ResultOp(true);
+        assertFalse(performAll(new ResultOp(true), new ResultOp(false), last));
+        assertFalse(last.performed);
+    }
+
+    @Test
+    void doesNotWaitForOperations() throws Exception {
+        HangingOp op = new HangingOp();
+        long overrun = TimeOutMetrics.get().getOperationOverrunCount();
+        ResultOp next = new ResultOp(true);
+        long start = System.nanoTime();
+
+        CompletableFuture<Boolean> result = OperationWatchdog.performAll(Arrays.asList(op, next), build, listener, 1);
+        // the caller, e.g. the timer thread, is not held by the hanging operation.
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < op.getExecutionBudget());
+
+        assertTrue(result.get(10, TimeUnit.SECONDS));
+        assertEquals(overrun + 1, TimeOutMetrics.get().getOperationOverrunCount());
+        // the operation is interrupted, and the next one performed.
+        assertTrue(op.interrupted.await(10, TimeUnit.SECONDS));
+        assertTrue(next.performed);
+    }
+
+    @Test
+    void stopsOnOverrunIfConfigured() throws Exception {
+        OperationWatchdog.STOP_ON_OVERRUN = true;
+        ResultOp next = new ResultOp(true);
+        assertFalse(performAll(new HangingOp(), next));
+        assertFalse(next.performed);
+    }
+
+    @Test
+    void performsWithoutBudgetInline() throws Exception {
+        InlineOp op = new InlineOp();
+        assertTrue(OperationWatchdog.performAll(Arrays.asList(op), build, listener, 1).isDone());
+        assertSame(Thread.currentThread(), op.thread);
+    }
+
+    @Test
+    void runsAsSystem() throws Exception {
+        AuthenticationOp op = new AuthenticationOp();
+        assertTrue(performAll(op));
+        assertSame(ACL.SYSTEM2, op.authentication);
+    }
+
+    @Test
+    void passesThroughExceptions() {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> performAll(new ThrowingOp(), new ResultOp(true)));
+        assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
+    private static class ResultOp extends BuildTimeOutOperation {
+        private final boolean result;
+        volatile boolean performed;
+
+        ResultOp(boolean result) {
+            this.result = result;
+        }
+
+        @Override
+        public boolean perform(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener, long effectiveTimeout) {
+            performed = true;
+            return result;
+        }
+    }
+
+    private static class InlineOp extends BuildTimeOutOperation {
+        Thread thread;
+
+        @Override
+        public boolean perform(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener, long effectiveTimeout) {
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        @Override
+        public long getExecutionBudget() {
+            return 0;
+        }
+    }
+
+    private static class AuthenticationOp extends BuildTimeOutOperation {
+        volatile Authentication authentication;
+
+        @Override
+        public boolean perform(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener, long effectiveTimeout) {
+            authentication = Jenkins.getAuthentication2();
+            return true;
+        }
+
+        @Override
+        public long getExecutionBudget() {
+            return 10 * 1000;
+        }
+    }
+
+    private static class HangingOp extends BuildTimeOutOperation {
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        @Override
+        public boolean perform(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener, long effectiveTimeout) {
+            try {
+                Thread.sleep(60 * 1000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return true;
+        }
+
+        @Override
+        public long getExecutionBudget() {
+            return 1000;
+        }
+    }
+
+    private static class ThrowingOp extends BuildTimeOutOperation {
+        @Override
+        public boolean perform(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener, long effectiveTimeout) {
+            throw new IllegalStateException("test");
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package hudson.plugins.build_timeout;
+
+import hudson.ExtensionList;
+import hudson.model.AbstractProject;
+import hudson.model.Descriptor;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.Queue;
+import hudson.model.Run;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.CaptureEnvironmentBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@WithJenkins
+class QueueTimeOutPrecomputerTest {
+    private static final long AT_START = TimeUnit.HOURS.toMillis(1);
+    private static final long IN_ADVANCE = TimeUnit.HOURS.toMillis(2);
+
+    /**
+     * Tells apart the time out computed in the queue from the one computed when the build starts.
+     */
+    public static class InAdvanceTimeOutStrategy extends BuildTimeOutStrategy {
+        @Override
+        public long getTimeOut(@NonNull Run run) {
+            return AT_START;
+        }
+
+        @Override
+        public long getTimeOutInAdvance(@NonNull AbstractProject<?, ?> project) {
+            return IN_ADVANCE;
+        }
+
+        @Override
+        public Descriptor<BuildTimeOutStrategy> getDescriptor() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Computes a different time out each time the item becomes buildable.
+     */
+    public static class CountingTimeOutStrategy extends InAdvanceTimeOutStrategy {
+        private final AtomicInteger computed = new AtomicInteger();
+
+        @Override
+        public long getTimeOutInAdvance(@NonNull AbstractProject<?, ?> project) {
+            return IN_ADVANCE + computed.incrementAndGet();
+        }
+    }
+
+    @BeforeEach
+    void before() {
+        QueueTimeOutPrecomputer.ENABLED = true;
+    }
+
+    @AfterEach
+    void after() {
+        QueueTimeOutPrecomputer.ENABLED = false;
+    }
+
+    @Test
+    void buildUsesPrecomputedTimeOut(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        // waits in the queue, buildable, until an agent with this label comes.
+        p.setAssignedLabel(Label.get("precomputed"));
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new InAdvanceTimeOutStrategy(),
+                Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                "TIMEOUT"));
+        CaptureEnvironmentBuilder captureEnvBuilder = new CaptureEnvironmentBuilder();
+        p.getBuildersList().add(captureEnvBuilder);
+
+        QueueTaskFuture<FreeStyleBuild> future = p.scheduleBuild2(0);
+        Queue.Item item;
+        while ((item = Queue.getInstance().getItem(p)) == null || item.getAction(PrecomputedTimeOutAction.class) == null) {
+            Queue.getInstance().maintain();
+            Thread.sleep(100);
+        }
+        j.createOnlineSlave(Label.get("precomputed"));
+        FreeStyleBuild b = j.assertBuildStatusSuccess(future);
+
+        assertEquals(String.valueOf(IN_ADVANCE), captureEnvBuilder.getEnvVars().get("TIMEOUT"));
+        // consumed when the build started.
+        assertNull(b.getAction(PrecomputedTimeOutAction.class));
+    }
+
+    @Test
+    void reenteringBuildableReplacesPrecomputedTimeOut(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.setAssignedLabel(Label.get("precomputed"));
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new CountingTimeOutStrategy(),
+                Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                "TIMEOUT"));
+
+        p.scheduleBuild2(0);
+        Queue.Item item = awaitPrecomputed(p, IN_ADVANCE + 1);
+        // as when the item gets blocked then buildable again: the queue carries its actions over.
+        ExtensionList.lookupSingleton(QueueTimeOutPrecomputer.class).onEnterBuildable((Queue.BuildableItem) item);
+        awaitPrecomputed(p, IN_ADVANCE + 2);
+
+        assertEquals(1, Queue.getInstance().getItem(p).getActions(PrecomputedTimeOutAction.class).size());
+        Queue.getInstance().cancel(p);
+    }
+
+    private static Queue.Item awaitPrecomputed(FreeStyleProject p, long timeout) throws InterruptedException {
+        for (int i = 0; i < 100; ++i) {
+            Queue.getInstance().maintain();
+            Queue.Item item = Queue.getInstance().getItem(p);
+            PrecomputedTimeOutAction action = (item != null) ? item.getAction(PrecomputedTimeOutAction.class) : null;
+            if (action != null && action.getTimeOut() == timeout) {
+                return item;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("time out " + timeout + " not precomputed for " + p.getFullName());
+    }
+
+    @Test
+    void buildComputesTimeOutWhenDisabled(JenkinsRule j) throws Exception {
+        QueueTimeOutPrecomputer.ENABLED = false;
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new InAdvanceTimeOutStrategy(),
+                Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                "TIMEOUT"));
+        CaptureEnvironmentBuilder captureEnvBuilder = new CaptureEnvironmentBuilder();
+        p.getBuildersList().add(captureEnvBuilder);
+
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+
+        assertEquals(String.valueOf(AT_START), captureEnvBuilder.getEnvVars().get("TIMEOUT"));
+    }
+}
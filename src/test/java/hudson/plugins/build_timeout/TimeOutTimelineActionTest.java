@@ -0,0 +1,101 @@
+package hudson.plugins.build_timeout;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.impl.NoActivityTimeOutStrategy;
+import hudson.plugins.build_timeout.metrics.TimeOutMetrics.Outcome;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class TimeOutTimelineActionTest {
+    @Test
+    void operationOutcomes() {
+        TimeOutTimelineAction timeline = new TimeOutTimelineAction(1000, 2000);
+        timeline.operation(Outcome.COMPLETED);
+        timeline.operation(Outcome.OVERRUN);
+        timeline.operation(Outcome.FAILED);
+        assertEquals(3, timeline.getOperationCount());
+        assertEquals(Outcome.COMPLETED, timeline.getOperationOutcome(0));
+        assertEquals(Outcome.OVERRUN, timeline.getOperationOutcome(1));
+        assertEquals(Outcome.FAILED, timeline.getOperationOutcome(2));
+        assertNull(timeline.getOperationOutcome(3));
+
+        for (int i = 3; i < TimeOutTimelineAction.MAX_OPERATIONS + 5; ++i) {
+            timeline.operation(Outcome.COMPLETED);
+        }
+        assertEquals(Outcome.COMPLETED, timeline.getOperationOutcome(TimeOutTimelineAction.MAX_OPERATIONS - 1));
+        assertNull(timeline.getOperationOutcome(TimeOutTimelineAction.MAX_OPERATIONS));
+    }
+
+    @Test
+    void silence() {
+        TimeOutTimelineAction timeline = new TimeOutTimelineAction(1000, 4000);
+        timeline.rescheduled(1, 500, 1500, 4500);
+        timeline.rescheduled(1, 2000, 3500, 6500);
+        timeline.rescheduled(1, 100, 3600, 6600);
+        timeline.fired(6700, 100);
+        assertEquals(3, timeline.getExtensions());
+        assertEquals(3100, timeline.getLongestSilence());
+        assertEquals(6600, timeline.getDeadline());
+        assertEquals(6700, timeline.getFiredAt());
+        assertEquals(100, timeline.getLateness());
+    }
+
+    @Test
+    void reportedInBulk() {
+        TimeOutTimelineAction timeline = new TimeOutTimelineAction(1000, 4000);
+        timeline.rescheduled(1, 500, 1500, 4500);
+        timeline.rescheduled(5, 2000, 3600, 6600);
+        timeline.fired(6700, 100);
+        assertEquals(6, timeline.getExtensions());
+        assertEquals(3100, timeline.getLongestSilence());
+        assertEquals(6600, timeline.getDeadline());
+    }
+
+    @Test
+    void recordedWithBuild(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new NoActivityTimeOutStrategy(3),
+                Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                null));
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+                for (int i = 0; i < 3; ++i) {
+                    listener.getLogger().println("line " + i);
+                    Thread.sleep(200);
+                }
+                Thread.sleep(60 * 1000);
+                return true;
+            }
+        });
+        FreeStyleBuild b = j.assertBuildStatus(Result.ABORTED, p.scheduleBuild2(0).get());
+
+        // the outcome of the operation may be recorded after the build has been saved.
+        b.save();
+        b.reload();
+        TimeOutTimelineAction timeline = b.getAction(TimeOutTimelineAction.class);
+        assertNotNull(timeline);
+        assertTrue(timeline.getExtensions() >= 3, timeline.toString());
+        assertTrue(timeline.getLongestSilence() >= 3000, timeline.toString());
+        assertTrue(timeline.getFiredAt() >= timeline.getDeadline(), timeline.toString());
+        assertEquals(1, timeline.getOperationCount());
+        assertEquals(Outcome.COMPLETED, timeline.getOperationOutcome(0));
+    }
+}
@@ -0,0 +1,39 @@
+package hudson.plugins.build_timeout.benchmark;
+
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks annotated with {@link jenkins.benchmark.jmh.JmhBenchmark}.
+ *
+ * Not a test: run with {@code mvn test -Dtest=BenchmarkRunner},
+ * optionally restricted with {@code -Dbenchmark.include=<regexp>}.
+ * Results are written to {@code jmh-report.json}, allocations included,
+ * to be compared between releases.
+ */
+public class BenchmarkRunner {
+    @Test
+    void runJmhBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .forks(Integer.getInteger("benchmark.forks", 2))
+                .warmupIterations(Integer.getInteger("benchmark.warmupIterations", 3))
+                .measurementIterations(Integer.getInteger("benchmark.measurementIterations", 5))
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(System.getProperty("benchmark.result", "jmh-report.json"));
+        String include = System.getProperty("benchmark.include");
+        if (include != null) {
+            options.include(include);
+        }
+
+        new BenchmarkFinder(getClass()).findBenchmarks(options);
+        new Runner(options.build()).run();
+    }
+}
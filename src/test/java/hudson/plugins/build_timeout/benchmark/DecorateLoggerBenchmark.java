@@ -0,0 +1,141 @@
+package hudson.plugins.build_timeout.benchmark;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.BuildTimeOutStrategy;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.impl.AbsoluteTimeOutStrategy;
+import hudson.plugins.build_timeout.impl.NoActivityTimeOutStrategy;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+import hudson.util.OneShotEvent;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.jvnet.hudson.test.TestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Console output written through {@link BuildTimeoutWrapper#decorateLogger(AbstractBuild, OutputStream)}.
+ *
+ * Each operation writes 1 MiB of lines, so the throughput is in MiB/s
+ * and {@code gc.alloc.rate.norm} is the allocation per MiB.
+ * {@code none} uses a strategy which does not capture the console, as a baseline.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class DecorateLoggerBenchmark {
+    static final int MIB = 1024 * 1024;
+
+    /**
+     * A build of each kind, running until the benchmark is over.
+     */
+    public static class RunningBuilds extends JmhBenchmarkState {
+        private final OneShotEvent done = new OneShotEvent();
+        FreeStyleBuild none;
+        FreeStyleBuild noActivity;
+
+        @Override
+        public void setup() throws Exception {
+            none = start(new AbsoluteTimeOutStrategy("60"));
+            noActivity = start(new NoActivityTimeOutStrategy("3600"));
+        }
+
+        private FreeStyleBuild start(BuildTimeOutStrategy strategy) throws Exception {
+            FreeStyleProject p = Jenkins.get().createProject(FreeStyleProject.class, "p" + Jenkins.get().getItems().size());
+            p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                    strategy,
+                    Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                    null));
+            OneShotEvent started = new OneShotEvent();
+            p.getBuildersList().add(new TestBuilder() {
+                @Override
+                public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+                    started.signal();
+                    done.block();
+                    return true;
+                }
+            });
+            FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+            started.block();
+            return b;
+        }
+
+        @Override
+        public void tearDown() {
+            done.signal();
+        }
+    }
+
+    /**
+     * The console of a writer thread.
+     */
+    @State(Scope.Thread)
+    public static class Console {
+        @Param({"none", "noActivity"})
+        String strategy;
+
+        @Param({"10", "100", "1000", "10000"})
+        int lineLength;
+
+        OutputStream out;
+        byte[] line;
+        int lines;
+
+        @Setup(Level.Trial)
+        public void setup(RunningBuilds builds) throws Exception {
+            FreeStyleBuild build = "none".equals(strategy) ? builds.none : builds.noActivity;
+            BuildTimeoutWrapper wrapper = build.getProject().getBuildWrappersList().get(BuildTimeoutWrapper.class);
+            out = wrapper.decorateLogger(build, OutputStream.nullOutputStream());
+            line = new byte[lineLength];
+            Arrays.fill(line, (byte) 'x');
+            line[lineLength - 1] = '\n';
+            lines = (MIB + lineLength - 1) / lineLength;
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            out.flush();
+        }
+
+        void writeMiB() throws IOException {
+            for (int i = 0; i < lines; ++i) {
+                out.write(line, 0, line.length);
+            }
+        }
+    }
+
+    @Benchmark
+    public void singleWriter(Console console) throws IOException {
+        console.writeMiB();
+    }
+
+    /**
+     * Writers of the same build, as parallel steps or processes writing to the same console.
+     */
+    @Benchmark
+    @Threads(4)
+    public void concurrentWriters(Console console) throws IOException {
+        console.writeMiB();
+    }
+}
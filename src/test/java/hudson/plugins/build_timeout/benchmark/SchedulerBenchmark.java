@@ -0,0 +1,184 @@
+package hudson.plugins.build_timeout.benchmark;
+
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scalability of the schedulers with 1k, 10k and 100k live time outs:
+ * <ul>
+ *     <li>{@code scheduleCancel}: builds starting and completing before timing out (p99 from sample mode)</li>
+ *     <li>{@code reschedule}: console activity of builds with no activity time outs (p99 from sample mode)</li>
+ *     <li>{@code massExpiry}: all time outs firing at once, reporting the firing lateness</li>
+ *     <li>{@code retainedHeap}: heap retained per live time out</li>
+ * </ul>
+ * Operations per second are derived from the sampled times.
+ */
+@JmhBenchmark
+public class SchedulerBenchmark {
+    private static final long FAR = TimeUnit.HOURS.toMillis(1);
+
+    @State(Scope.Benchmark)
+    public static class LiveTimeOuts {
+        @Param({"trigger", "module", "jenkinsTimer"})
+        String scheduler;
+
+        @Param({"1000", "10000", "100000"})
+        int count;
+
+        Schedulers schedulers;
+        Object[] handles;
+        final AtomicInteger next = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setup() {
+            schedulers = Schedulers.of(scheduler);
+            handles = new Object[count];
+            for (int i = 0; i < count; ++i) {
+                handles[i] = schedulers.schedule(SchedulerBenchmark::nothing, FAR + i);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            schedulers.cancelAll(handles);
+            schedulers.close();
+        }
+    }
+
+    static void nothing() {
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void scheduleCancel(LiveTimeOuts live) {
+        live.schedulers.cancel(live.schedulers.schedule(SchedulerBenchmark::nothing, FAR));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void reschedule(LiveTimeOuts live) {
+        int i = Math.floorMod(live.next.getAndIncrement(), live.count);
+        synchronized (live.handles) {
+            live.schedulers.cancel(live.handles[i]);
+            live.handles[i] = live.schedulers.schedule(SchedulerBenchmark::nothing, FAR + i);
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Expiry {
+        @Param({"trigger", "module", "jenkinsTimer"})
+        String scheduler;
+
+        @Param({"1000", "10000", "100000"})
+        int count;
+
+        /**
+         * Firing lateness of the last iteration.
+         */
+        public long latenessP99Millis;
+        public long latenessMaxMillis;
+
+        Schedulers schedulers;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            schedulers = Schedulers.of(scheduler);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            schedulers.close();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void massExpiry(Expiry expiry) throws InterruptedException {
+        int count = expiry.count;
+        long[] lateness = new long[count];
+        CountDownLatch fired = new CountDownLatch(count);
+        // leave time to schedule them all
+        long delay = 200 + count / 100;
+        long deadline = System.currentTimeMillis() + delay;
+        for (int i = 0; i < count; ++i) {
+            int index = i;
+            expiry.schedulers.schedule(() -> {
+                lateness[index] = System.currentTimeMillis() - deadline;
+                fired.countDown();
+            }, Math.max(0, deadline - System.currentTimeMillis()));
+        }
+        fired.await();
+        Arrays.sort(lateness);
+        expiry.latenessP99Millis = lateness[(int) Math.ceil(count * 0.99) - 1];
+        expiry.latenessMaxMillis = lateness[count - 1];
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        @Param({"trigger", "module", "jenkinsTimer"})
+        String scheduler;
+
+        @Param({"1000", "10000", "100000"})
+        int count;
+
+        /**
+         * Includes the 8 bytes (or 4 with compressed oops) the benchmark keeps per handle.
+         */
+        public long retainedBytesPerTimeOut;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void retainedHeap(Heap heap) {
+        Schedulers schedulers = Schedulers.of(heap.scheduler);
+        try {
+            long before = usedHeapAfterGc();
+            Object[] handles = new Object[heap.count];
+            for (int i = 0; i < heap.count; ++i) {
+                handles[i] = schedulers.schedule(SchedulerBenchmark::nothing, FAR + i);
+            }
+            long after = usedHeapAfterGc();
+            heap.retainedBytesPerTimeOut = Math.max(0, after - before) / heap.count;
+            schedulers.cancelAll(handles);
+        } finally {
+            schedulers.close();
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
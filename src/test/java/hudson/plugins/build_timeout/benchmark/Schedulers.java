@@ -0,0 +1,125 @@
+package hudson.plugins.build_timeout.benchmark;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The schedulers time outs run on, used the way the plugin uses them.
+ */
+abstract class Schedulers {
+    /**
+     * @param task task to run
+     * @param delayMillis milliseconds until the task runs
+     * @return the handle to cancel the task.
+     */
+    abstract Object schedule(Runnable task, long delayMillis);
+
+    abstract void cancel(Object handle);
+
+    /**
+     * Cancels many tasks at once, as {@link #cancel(Object)} may purge the whole queue.
+     */
+    void cancelAll(Object[] handles) {
+        for (Object handle : handles) {
+            cancel(handle);
+        }
+    }
+
+    abstract void close();
+
+    static Schedulers of(String name) {
+        switch (name) {
+            case "trigger":
+                return new TriggerTimer();
+            case "module":
+                return new Executor(globalTimeOutScheduler(), true);
+            case "jenkinsTimer":
+                return new Executor(jenkins.util.Timer.get(), false);
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    /**
+     * Same as {@link hudson.plugins.build_timeout.global.GlobalTimeOutModule}.
+     */
+    private static ScheduledExecutorService globalTimeOutScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("timeout-%d")
+                .build());
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * A {@link Timer} like {@link hudson.triggers.Trigger#timer}, cancelled and purged like
+     * {@link hudson.plugins.build_timeout.BuildTimeoutWrapper.EnvironmentImpl#reschedule()} does.
+     */
+    private static final class TriggerTimer extends Schedulers {
+        private final Timer timer = new Timer("benchmark-trigger-timer", true);
+
+        @Override
+        Object schedule(Runnable task, long delayMillis) {
+            TimerTask t = new TimerTask() {
+                @Override
+                public void run() {
+                    task.run();
+                }
+            };
+            timer.schedule(t, delayMillis);
+            return t;
+        }
+
+        @Override
+        void cancel(Object handle) {
+            ((TimerTask) handle).cancel();
+            timer.purge();
+        }
+
+        @Override
+        void cancelAll(Object[] handles) {
+            for (Object handle : handles) {
+                ((TimerTask) handle).cancel();
+            }
+            timer.purge();
+        }
+
+        @Override
+        void close() {
+            timer.cancel();
+        }
+    }
+
+    private static final class Executor extends Schedulers {
+        private final ScheduledExecutorService executor;
+        private final boolean owned;
+
+        private Executor(ScheduledExecutorService executor, boolean owned) {
+            this.executor = executor;
+            this.owned = owned;
+        }
+
+        @Override
+        Object schedule(Runnable task, long delayMillis) {
+            return executor.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        void cancel(Object handle) {
+            ((ScheduledFuture<?>) handle).cancel(false);
+        }
+
+        @Override
+        void close() {
+            if (owned) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
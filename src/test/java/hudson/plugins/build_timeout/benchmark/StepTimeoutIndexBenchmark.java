@@ -0,0 +1,98 @@
+package hudson.plugins.build_timeout.benchmark;
+
+import hudson.ExtensionList;
+import hudson.model.FreeStyleProject;
+import hudson.model.Project;
+import hudson.plugins.build_timeout.BuildStepWithTimeout;
+import hudson.plugins.build_timeout.global.StepTimeoutIndex;
+import hudson.plugins.build_timeout.impl.AbsoluteTimeOutStrategy;
+import hudson.tasks.Builder;
+import hudson.tasks.Shell;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The check of the global time out for a {@link BuildStepWithTimeout} in the job of each starting build,
+ * on a controller with 100, 1k and 10k jobs of {@value #BUILDERS} builders each.
+ *
+ * {@code indexed} looks the job up in {@link StepTimeoutIndex}, {@code scanned} goes through the builders
+ * of the job as the global time out used to, catching {@link ClassCastException} for other kinds of jobs.
+ * One job in ten has a step with a time out, as its last builder.
+ */
+@JmhBenchmark
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StepTimeoutIndexBenchmark {
+    static final int BUILDERS = 10;
+
+    public static class Jobs extends JmhBenchmarkState {
+        @Param({"100", "1000", "10000"})
+        int count;
+
+        StepTimeoutIndex index;
+        Project<?, ?>[] projects;
+
+        @Override
+        public void setup() throws Exception {
+            index = ExtensionList.lookupSingleton(StepTimeoutIndex.class);
+            projects = new Project<?, ?>[count];
+            for (int i = 0; i < count; ++i) {
+                FreeStyleProject p = Jenkins.get().createProject(FreeStyleProject.class, "p" + i);
+                List<Builder> builders = new ArrayList<>();
+                for (int b = 0; b < BUILDERS - 1; ++b) {
+                    builders.add(new Shell("true"));
+                }
+                builders.add((i % 10 == 0)
+                        ? new BuildStepWithTimeout(new Shell("true"), new AbsoluteTimeOutStrategy("3"), null)
+                        : new Shell("true"));
+                // saves the job once, which indexes it.
+                p.getBuildersList().replaceBy(builders);
+                projects[i] = p;
+            }
+        }
+    }
+
+    /**
+     * Builds start for jobs all over the controller.
+     */
+    @State(Scope.Thread)
+    public static class Starts {
+        private int next;
+
+        Project<?, ?> next(Jobs jobs) {
+            next = (next + 1) % jobs.projects.length;
+            return jobs.projects[next];
+        }
+    }
+
+    @Benchmark
+    public boolean indexed(Jobs jobs, Starts starts) {
+        return jobs.index.hasStepTimeout(starts.next(jobs));
+    }
+
+    @Benchmark
+    public boolean scanned(Jobs jobs, Starts starts) {
+        Object project = starts.next(jobs);
+        try {
+            Optional<Builder> step = ((Project<?, ?>) project).getBuilders().stream()
+                    .filter(builder -> builder instanceof BuildStepWithTimeout)
+                    .findAny();
+            return step.isPresent();
+        } catch (ClassCastException e) {
+            return false;
+        }
+    }
+}
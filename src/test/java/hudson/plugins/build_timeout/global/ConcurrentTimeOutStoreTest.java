@@ -0,0 +1,117 @@
+package hudson.plugins.build_timeout.global;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class ConcurrentTimeOutStoreTest {
+
+    @Test
+    void shouldKeepAndCancel() {
+        ConcurrentTimeOutStore store = new ConcurrentTimeOutStore(key -> true);
+        ScheduledFuture<?> a = mock(ScheduledFuture.class);
+        given(a.cancel(false)).willReturn(true);
+        store.scheduled("folder/a#1", a);
+        assertEquals(1, store.size());
+
+        store.cancel("folder/a#1");
+
+        verify(a).cancel(false);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void shouldCancelDuplicate() {
+        ConcurrentTimeOutStore store = new ConcurrentTimeOutStore(key -> true);
+        ScheduledFuture<?> first = mock(ScheduledFuture.class);
+        ScheduledFuture<?> second = mock(ScheduledFuture.class);
+        store.scheduled("a#1", first);
+
+        store.scheduled("a#1", second);
+
+        assertEquals(1, store.size());
+        verify(first, never()).cancel(false);
+        verify(second).cancel(false);
+    }
+
+    @Test
+    void shouldForgetFired() {
+        ConcurrentTimeOutStore store = new ConcurrentTimeOutStore(key -> true);
+        // cancel(false) returns false on a future which already ran.
+        store.scheduled("a#1", mock(ScheduledFuture.class));
+
+        store.cancel("a#1");
+
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void shouldSweepGoneBuilds() {
+        ConcurrentTimeOutStore store = new ConcurrentTimeOutStore(key -> key.number != 2);
+        ScheduledFuture<?> running = mock(ScheduledFuture.class);
+        ScheduledFuture<?> gone = mock(ScheduledFuture.class);
+        given(gone.cancel(false)).willReturn(true);
+        ScheduledFuture<?> done = mock(ScheduledFuture.class);
+        given(done.isDone()).willReturn(true);
+        store.scheduled("a#1", running);
+        store.scheduled("a#2", gone);
+        store.scheduled("a#3", done);
+
+        store.sweep();
+
+        assertEquals(1, store.size());
+        verify(gone).cancel(false);
+        verify(running, never()).cancel(false);
+        verify(done, never()).cancel(false);
+    }
+
+    @Test
+    void shouldStayConsistentUnderConcurrency() throws Exception {
+        ConcurrentTimeOutStore store = new ConcurrentTimeOutStore(key -> true);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        ExecutorService executors = Executors.newFixedThreadPool(16);
+        int threads = 16;
+        int buildsPerThread = 2000;
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; ++t) {
+                final String job = "job" + t;
+                futures.add(executors.submit(() -> {
+                    start.await();
+                    for (int n = 0; n < buildsPerThread; ++n) {
+                        String key = job + "#" + n;
+                        store.scheduled(key, scheduler.schedule(() -> {}, 1, TimeUnit.HOURS));
+                        if (n % 2 == 0) {
+                            store.cancel(key);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executors.shutdownNow();
+            scheduler.shutdownNow();
+        }
+
+        assertEquals(threads * buildsPerThread / 2, store.size());
+    }
+}
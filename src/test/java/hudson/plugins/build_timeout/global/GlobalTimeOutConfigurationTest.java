@@ -0,0 +1,71 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.ExtensionList;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+import hudson.plugins.build_timeout.operations.FailOperation;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.SleepBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@WithJenkins
+class GlobalTimeOutConfigurationTest {
+
+    @Test
+    void abortsByDefault(JenkinsRule j) {
+        GlobalTimeOutConfiguration config = ExtensionList.lookupSingleton(GlobalTimeOutConfiguration.class);
+        List<BuildTimeOutOperation> operations = config.getOperations();
+        assertEquals(1, operations.size());
+        assertInstanceOf(AbortOperation.class, operations.get(0));
+        // no new chain is built on each call.
+        assertSame(operations, config.getOperations());
+    }
+
+    @Test
+    void operationsAreSnapshot(JenkinsRule j) {
+        GlobalTimeOutConfiguration config = ExtensionList.lookupSingleton(GlobalTimeOutConfiguration.class);
+        List<BuildTimeOutOperation> configured = new ArrayList<>();
+        configured.add(new FailOperation());
+        config.setOperations(configured);
+
+        List<BuildTimeOutOperation> chain = config.getOperations();
+        configured.add(new AbortOperation());
+        assertEquals(1, chain.size());
+        assertEquals(1, config.getOperations().size());
+        assertThrows(UnsupportedOperationException.class, () -> chain.add(new AbortOperation()));
+    }
+
+    @Test
+    void applyToRunningBuilds(JenkinsRule j) throws Exception {
+        GlobalTimeOutConfiguration config = ExtensionList.lookupSingleton(GlobalTimeOutConfiguration.class);
+        GlobalTimeOutRunListener listener = ExtensionList.lookupSingleton(GlobalTimeOutRunListener.class);
+        config.setStrategy(new QuickBuildTimeOutStrategy(60 * 1000));
+
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildersList().add(new SleepBuilder(60 * 1000));
+        FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+        while (!listener.isRunning(b)) {
+            Thread.sleep(100);
+        }
+
+        config.setStrategy(new QuickBuildTimeOutStrategy(1000));
+        assertEquals(1, listener.applyToRunningBuilds().get());
+        j.assertBuildStatus(Result.ABORTED, j.waitForCompletion(b));
+
+        // nothing left to reschedule.
+        assertEquals(0, listener.applyToRunningBuilds().get());
+    }
+}
@@ -0,0 +1,68 @@
+package hudson.plugins.build_timeout.global;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GlobalTimeOutRuleIndexTest {
+    private final GlobalTimeOutRule pr = new GlobalTimeOutRule(null, "PR-*", null, null);
+    private final GlobalTimeOutRule release = new GlobalTimeOutRule("/release/", null, null, null);
+    private final GlobalTimeOutRule nightly = new GlobalTimeOutRule("team", "nightly", "linux", null);
+    private final GlobalTimeOutRule anything = new GlobalTimeOutRule("team", null, null, null);
+
+    private final GlobalTimeOutRuleIndex index = new GlobalTimeOutRuleIndex(Arrays.asList(pr, release, nightly, anything));
+
+    private static Set<String> labels(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    @Test
+    void matchesJobNamePattern() {
+        assertSame(pr, index.find("PR-42", labels()));
+        assertSame(pr, index.find("release/PR-42", labels()));
+        // the first folder is not in any rule
+        assertSame(pr, index.find("other/sub/PR-1", labels()));
+        assertNull(index.find("main", labels()));
+    }
+
+    @Test
+    void matchesFolderAndSubfolders() {
+        assertSame(release, index.find("release/build", labels()));
+        assertSame(release, index.find("release/product/build", labels("windows")));
+        assertNull(index.find("releases/build", labels()));
+        assertNull(index.find("release", labels()));
+        assertNull(index.find("other/release/build", labels()));
+    }
+
+    @Test
+    void matchesLabel() {
+        assertSame(nightly, index.find("team/nightly", labels("linux")));
+        assertSame(nightly, index.find("team/nightly", labels("docker", "linux")));
+        assertSame(anything, index.find("team/nightly", labels("windows")));
+        assertSame(anything, index.find("team/nightly", labels()));
+    }
+
+    @Test
+    void firstRuleWins() {
+        assertSame(pr, index.find("team/PR-1", labels("linux")));
+    }
+
+    @Test
+    void noRules() {
+        assertNull(new GlobalTimeOutRuleIndex(Collections.emptyList()).find("release/build", labels()));
+    }
+
+    @Test
+    void patternIsNotRegex() {
+        GlobalTimeOutRule dotted = new GlobalTimeOutRule(null, "a.b?", null, null);
+        GlobalTimeOutRuleIndex dottedIndex = new GlobalTimeOutRuleIndex(Collections.singletonList(dotted));
+        assertSame(dotted, dottedIndex.find("a.bc", labels()));
+        assertNull(dottedIndex.find("axbc", labels()));
+    }
+}
@@ -15,6 +15,8 @@ import java.time.Duration;
 import java.util.Optional;
 import java.util.concurrent.Executors;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
@@ -48,11 +50,11 @@ class GlobalTimeOutRunListenerTest {
     @Test
     void shouldStoreIfPresent() throws IOException, InterruptedException {
         given(timeOutProvider.timeOutFor(build, buildListener)).willReturn(Optional.of(Duration.ofMillis(1)));
-        given(build.getExternalizableId()).willReturn("a#1");
 
         listener.setUpEnvironment(build, launcher, buildListener);
 
-        verify(timeOutStore).scheduled(eq("a#1"), any());
+        verify(timeOutStore).scheduled(eq(build), any());
+        assertTrue(listener.isRunning(build));
     }
 
     @Test
@@ -62,5 +64,7 @@ class GlobalTimeOutRunListenerTest {
         listener.setUpEnvironment(build, launcher, buildListener);
 
         verifyNoInteractions(timeOutStore);
+        // builds without a global time out are not tracked.
+        assertFalse(listener.isRunning(build));
     }
 }
@@ -0,0 +1,100 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.ExtensionList;
+import hudson.model.FreeStyleProject;
+import hudson.model.Label;
+import hudson.model.Queue;
+import hudson.model.queue.QueueTaskFuture;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class QueueTimeOutListenerTest {
+
+    private static FreeStyleProject createStuckProject(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        // no agent has this label.
+        p.setAssignedLabel(Label.get("nowhere"));
+        return p;
+    }
+
+    @Test
+    void cancelsExpiredItems(JenkinsRule j) throws Exception {
+        QueueTimeOutListener listener = ExtensionList.lookupSingleton(QueueTimeOutListener.class);
+        List<QueueTaskFuture<?>> futures = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            FreeStyleProject p = createStuckProject(j);
+            p.addProperty(new QueueTimeOutProperty(60));
+            futures.add(p.scheduleBuild2(0));
+            ids.add(Queue.getInstance().getItem(p).getId());
+        }
+        assertEquals(3, listener.getWaiting());
+
+        for (long id : ids) {
+            // past the quiet period, waiting for an agent.
+            while (!(Queue.getInstance().getItem(id) instanceof Queue.BuildableItem)) {
+                Queue.getInstance().maintain();
+                Thread.sleep(100);
+            }
+            listener.expire(id);
+        }
+        for (QueueTaskFuture<?> future : futures) {
+            while (!future.isCancelled()) {
+                Thread.sleep(100);
+            }
+        }
+        assertEquals(0, listener.getWaiting());
+        for (long id : ids) {
+            Queue.Item left = assertInstanceOf(Queue.LeftItem.class, Queue.getInstance().getItem(id));
+            QueueTimeOutAction action = left.getAction(QueueTimeOutAction.class);
+            assertNotNull(action);
+            assertEquals(60, action.getTimeoutMinutes());
+            assertTrue(action.getReason().contains("nowhere"), action.getReason());
+        }
+    }
+
+    @Test
+    void globalTimeOut(JenkinsRule j) throws Exception {
+        QueueTimeOutListener listener = ExtensionList.lookupSingleton(QueueTimeOutListener.class);
+        ExtensionList.lookupSingleton(GlobalTimeOutConfiguration.class).setQueueTimeOutMinutes(60);
+
+        FreeStyleProject p = createStuckProject(j);
+        p.scheduleBuild2(0);
+        assertEquals(1, listener.getWaiting());
+
+        // leaving the queue cancels the time out.
+        Queue.getInstance().cancel(p);
+        assertEquals(0, listener.getWaiting());
+    }
+
+    @Test
+    void jobOverridesGlobalTimeOut(JenkinsRule j) throws Exception {
+        QueueTimeOutListener listener = ExtensionList.lookupSingleton(QueueTimeOutListener.class);
+        ExtensionList.lookupSingleton(GlobalTimeOutConfiguration.class).setQueueTimeOutMinutes(60);
+
+        FreeStyleProject p = createStuckProject(j);
+        p.addProperty(new QueueTimeOutProperty(0));
+        p.scheduleBuild2(0);
+        assertEquals(0, listener.getWaiting());
+        Queue.getInstance().cancel(p);
+    }
+
+    @Test
+    void noTimeOutByDefault(JenkinsRule j) throws Exception {
+        QueueTimeOutListener listener = ExtensionList.lookupSingleton(QueueTimeOutListener.class);
+        FreeStyleProject p = createStuckProject(j);
+        p.scheduleBuild2(0);
+        assertEquals(0, listener.getWaiting());
+        Queue.getInstance().cancel(p);
+    }
+}
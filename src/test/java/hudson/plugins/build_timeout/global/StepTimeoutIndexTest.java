@@ -0,0 +1,42 @@
+package hudson.plugins.build_timeout.global;
+
+import hudson.ExtensionList;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.build_timeout.BuildStepWithTimeout;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+import hudson.tasks.Shell;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class StepTimeoutIndexTest {
+
+    @Test
+    void tracksBuildStepWithTimeout(JenkinsRule j) throws Exception {
+        StepTimeoutIndex index = ExtensionList.lookupSingleton(StepTimeoutIndex.class);
+        FreeStyleProject p = j.createFreeStyleProject();
+        assertFalse(index.hasStepTimeout(p));
+
+        // saving the project updates the index.
+        p.getBuildersList().add(new BuildStepWithTimeout(new Shell("true"), new QuickBuildTimeOutStrategy(500), null));
+        p.save();
+        assertTrue(index.hasStepTimeout(p));
+
+        p.getBuildersList().clear();
+        p.save();
+        assertFalse(index.hasStepTimeout(p));
+    }
+
+    @Test
+    void tracksCopiedProject(JenkinsRule j) throws Exception {
+        StepTimeoutIndex index = ExtensionList.lookupSingleton(StepTimeoutIndex.class);
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildersList().add(new BuildStepWithTimeout(new Shell("true"), new QuickBuildTimeOutStrategy(500), null));
+        FreeStyleProject copy = j.jenkins.copy(p, "copy");
+        assertTrue(index.hasStepTimeout(copy));
+    }
+}
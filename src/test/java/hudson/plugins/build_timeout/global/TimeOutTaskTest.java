@@ -13,6 +13,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -34,25 +35,25 @@ class TimeOutTaskTest {
     }
 
     @Test
-    void shouldCallAllOperations() {
+    void shouldCallAllOperations() throws Exception {
         TestOp one = new TestOp();
         TestOp two = new TestOp();
         given(timeOutProvider.getOperations()).willReturn(Lists.newArrayList(one, two));
 
-        task.run();
+        task.start().get(10, TimeUnit.SECONDS);
 
         assertTrue(one.performed);
         assertTrue(two.performed);
     }
 
     @Test
-    void shouldStopAtFirstFailure() {
+    void shouldStopAtFirstFailure() throws Exception {
         TestOp one = new TestOp();
         FailsOp two = new FailsOp();
         TestOp three = new TestOp();
         given(timeOutProvider.getOperations()).willReturn(Lists.newArrayList(one, two, three));
 
-        task.run();
+        task.start().get(10, TimeUnit.SECONDS);
 
         assertTrue(one.performed);
         assertTrue(two.performed);
@@ -60,13 +61,13 @@ class TimeOutTaskTest {
     }
 
     @Test
-    void shouldStopAtFirstException() {
+    void shouldStopAtFirstException() throws Exception {
         TestOp one = new TestOp();
         ThrowsOp two = new ThrowsOp();
         TestOp three = new TestOp();
         given(timeOutProvider.getOperations()).willReturn(Lists.newArrayList(one, two, three));
 
-        task.run();
+        task.start().get(10, TimeUnit.SECONDS);
 
         assertTrue(one.performed);
         assertTrue(two.performed);
@@ -0,0 +1,115 @@
+package hudson.plugins.build_timeout.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.jvnet.hudson.test.CaptureEnvironmentBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.BuildTimeOutStrategy;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+import hudson.plugins.build_timeout.impl.CompositeTimeOutStrategy.Combination;
+import hudson.plugins.build_timeout.impl.CompositeTimeOutStrategy.Deadlines;
+import hudson.plugins.build_timeout.impl.NoActivityTimeOutStrategyTest.PollingBuilder;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+
+@WithJenkins
+class CompositeTimeOutStrategyTest {
+
+    @Test
+    void earliestDeadline() {
+        Deadlines deadlines = new Deadlines(Combination.EARLIEST, new long[] {7200, 600}, new boolean[] {false, true}, 1000);
+        assertEquals(600, deadlines.getTimeOut());
+
+        // activity moves the inactivity deadline only.
+        deadlines.touch(1500);
+        assertEquals(2100, deadlines.getDeadline());
+
+        // the absolute deadline comes first now.
+        deadlines.touch(8000);
+        assertEquals(8200, deadlines.getDeadline());
+        assertEquals(-100, deadlines.remaining(8300));
+    }
+
+    @Test
+    void latestDeadline() {
+        Deadlines deadlines = new Deadlines(Combination.LATEST, new long[] {7200, 600}, new boolean[] {false, true}, 1000);
+        assertEquals(7200, deadlines.getTimeOut());
+
+        deadlines.touch(8000);
+        assertEquals(8600, deadlines.getDeadline());
+    }
+
+    @Test
+    void noStrategies() {
+        Deadlines deadlines = new Deadlines(Combination.EARLIEST, new long[0], new boolean[0], 1000);
+        assertEquals(Long.MAX_VALUE, deadlines.getDeadline());
+        assertFalse(deadlines.hasDeadline());
+    }
+
+    @Test
+    void noStrategiesNeverTimesOut(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new CompositeTimeOutStrategy(Collections.<BuildTimeOutStrategy>emptyList(), Combination.EARLIEST),
+                Arrays.asList(new AbortOperation()),
+                "BUILD_TIMEOUT"
+        ));
+        CaptureEnvironmentBuilder env = new CaptureEnvironmentBuilder();
+        p.getBuildersList().add(env);
+
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        // no meaningful timeout to expose.
+        assertNull(env.getEnvVars().get("BUILD_TIMEOUT"));
+    }
+
+    private static FreeStyleProject createProject(JenkinsRule j, Combination combination, BuildTimeOutStrategy... strategies) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new CompositeTimeOutStrategy(Arrays.asList(strategies), combination),
+                Arrays.asList(new AbortOperation()),
+                null
+        ));
+        return p;
+    }
+
+    @Test
+    void timeoutByNoActivity(JenkinsRule j) throws Exception {
+        FreeStyleProject p = createProject(j, Combination.EARLIEST,
+                new QuickBuildTimeOutStrategy(60 * 1000),
+                new NoActivityTimeOutStrategy(5));
+        p.getBuildersList().add(new PollingBuilder(10 * 1000, 30 * 1000));
+
+        j.assertBuildStatus(Result.ABORTED, p.scheduleBuild2(0).get());
+    }
+
+    @Test
+    void timeoutByAbsoluteWhileActive(JenkinsRule j) throws Exception {
+        FreeStyleProject p = createProject(j, Combination.EARLIEST,
+                new QuickBuildTimeOutStrategy(5 * 1000),
+                new NoActivityTimeOutStrategy(15));
+        p.getBuildersList().add(new PollingBuilder(1000, 30 * 1000));
+
+        j.assertBuildStatus(Result.ABORTED, p.scheduleBuild2(0).get());
+    }
+
+    @Test
+    void noTimeoutUntilAllStrategiesTimeout(JenkinsRule j) throws Exception {
+        FreeStyleProject p = createProject(j, Combination.LATEST,
+                new QuickBuildTimeOutStrategy(1000),
+                new NoActivityTimeOutStrategy(15));
+        p.getBuildersList().add(new PollingBuilder(1000, 10 * 1000));
+
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+    }
+}
@@ -4,6 +4,7 @@ import hudson.model.FreeStyleBuild;
 import hudson.model.FreeStyleProject;
 import hudson.model.Result;
 import hudson.plugins.build_timeout.BuildTimeOutStrategy;
+import hudson.plugins.build_timeout.TimeOutTimelineAction;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
@@ -85,6 +86,34 @@ class ElasticTimeOutStrategyTest {
 
     }
 
+    @Test
+    void ignoresBuildsWhichTimedOut() throws Exception {
+        BuildTimeOutStrategy strategy = new ElasticTimeOutStrategy(200, 60, 3);
+
+        Build timedOut = new Build(90 * MINUTES, SUCCESS, new Build(40 * MINUTES, SUCCESS));
+        TimeOutTimelineAction.start(timedOut, 0, 90 * MINUTES).fired(90 * MINUTES, 0);
+        Build b = new Build(new Build(20 * MINUTES, SUCCESS, timedOut));
+
+        assertEquals(60 * MINUTES, strategy.getTimeOut(b,null),"Timeout should be 200% of the average of 20 and 40");
+    }
+
+    @Test
+    void timeOutInAdvance() throws Exception {
+        BuildTimeOutStrategy strategy = new ElasticTimeOutStrategy(200, 60, 3);
+
+        FreeStyleProject project = Mockito.mock(FreeStyleProject.class);
+        Mockito.when(project.getLastBuild()).thenReturn(new Build(20 * MINUTES, SUCCESS, new Build(40 * MINUTES, SUCCESS)));
+
+        assertEquals(60 * MINUTES, strategy.getTimeOutInAdvance(project), "Timeout should be 200% of the average of 20 and 40");
+    }
+
+    @Test
+    void noTimeOutInAdvanceWithMacros() throws Exception {
+        BuildTimeOutStrategy strategy = new ElasticTimeOutStrategy("${PERCENTAGE}", "60", "3", false);
+
+        assertEquals(-1, strategy.getTimeOutInAdvance(Mockito.mock(FreeStyleProject.class)), "Timeout should be computed when the build starts.");
+    }
+
     private class Build extends FreeStyleBuild {
         Build previous;
         long duration;
@@ -0,0 +1,116 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+import hudson.util.OneShotEvent;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class ActiveTimeOutsLinkTest {
+    @Test
+    void orderedByDeadline() {
+        TimeOutMetrics metrics = TimeOutMetrics.get();
+        ActiveTimeOutIndex index = metrics.getActiveTimeOuts();
+        int size = index.size();
+
+        TimeOutMetrics.Timer late = metrics.scheduled(TimeOutMetrics.Kind.GLOBAL, null, null, 3600 * 1000L);
+        TimeOutMetrics.Timer early = metrics.scheduled(TimeOutMetrics.Kind.WRAPPER, null, null, 60 * 1000L);
+        assertEquals(size + 2, index.size());
+        List<TimeOutMetrics.Timer> page = index.page(0, Integer.MAX_VALUE);
+        assertTrue(page.indexOf(early) < page.indexOf(late));
+
+        early.rescheduled(7200 * 1000L);
+        page = index.page(0, Integer.MAX_VALUE);
+        assertTrue(page.indexOf(late) < page.indexOf(early));
+        assertEquals(size + 2, index.size());
+
+        late.fired();
+        early.cancelled();
+        early.rescheduled(0);
+        assertEquals(size, index.size());
+        page = index.page(0, Integer.MAX_VALUE);
+        assertFalse(page.contains(early));
+        assertFalse(page.contains(late));
+    }
+
+    @Test
+    void pagination() {
+        assertEquals(ActiveTimeOutsLink.DEFAULT_LIMIT, ActiveTimeOutsLink.clamp(0));
+        assertEquals(ActiveTimeOutsLink.MAX_LIMIT, ActiveTimeOutsLink.clamp(Integer.MAX_VALUE));
+        assertEquals(0, new ActiveTimeOutsLink().startOf("x"));
+
+        TimeOutMetrics metrics = TimeOutMetrics.get();
+        ActiveTimeOutIndex index = metrics.getActiveTimeOuts();
+        List<TimeOutMetrics.Timer> timers = Arrays.asList(
+                metrics.scheduled(TimeOutMetrics.Kind.WRAPPER, null, null, 1000),
+                metrics.scheduled(TimeOutMetrics.Kind.WRAPPER, null, null, 2000),
+                metrics.scheduled(TimeOutMetrics.Kind.WRAPPER, null, null, 3000));
+        try {
+            assertEquals(2, index.page(0, 2).size());
+            assertEquals(index.page(0, 3).subList(1, 3), index.page(1, 2));
+        } finally {
+            timers.forEach(TimeOutMetrics.Timer::cancelled);
+        }
+    }
+
+    @Test
+    void listsRunningBuilds(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(600 * 1000),
+                Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                null));
+        OneShotEvent started = new OneShotEvent();
+        p.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+                started.signal();
+                Thread.sleep(600 * 1000);
+                return true;
+            }
+        });
+        FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+        started.block();
+
+        JSONObject json = JSONObject.fromObject(j.createWebClient()
+                .goTo("manage/build-timeouts/api?limit=1000", "application/json").getWebResponse().getContentAsString());
+        JSONObject found = null;
+        JSONArray timeOuts = json.getJSONArray("timeOuts");
+        for (int i = 0; i < timeOuts.size(); ++i) {
+            if (b.getExternalizableId().equals(timeOuts.getJSONObject(i).optString("build"))) {
+                found = timeOuts.getJSONObject(i);
+            }
+        }
+        assertTrue(found != null, json.toString());
+        assertEquals("WRAPPER", found.getString("kind"));
+        assertEquals("QuickBuildTimeOutStrategy", found.getString("strategy"));
+        assertTrue(found.getLong("remainingMillis") > 0);
+
+        j.createWebClient().goTo("manage/build-timeouts/");
+
+        b.doStop();
+        j.waitForCompletion(b);
+        assertFalse(TimeOutMetrics.get().getActiveTimeOuts().page(0, Integer.MAX_VALUE).stream()
+                .anyMatch(t -> t.getBuild() == b));
+    }
+}
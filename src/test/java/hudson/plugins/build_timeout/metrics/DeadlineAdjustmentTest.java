@@ -0,0 +1,107 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.Launcher;
+import hudson.cli.CLICommandInvoker;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.BuildStepWithTimeout;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+import hudson.util.OneShotEvent;
+import jenkins.model.Jenkins;
+import org.junit.jupiter.api.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockFolder;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class DeadlineAdjustmentTest {
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+
+    private static class BlockingBuilder extends TestBuilder {
+        private final OneShotEvent started = new OneShotEvent();
+
+        @Override
+        public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) throws InterruptedException {
+            started.signal();
+            Thread.sleep(TEN_MINUTES * 2);
+            return true;
+        }
+    }
+
+    private static FreeStyleBuild startWithWrapper(JenkinsRule j, MockFolder folder, String name) throws Exception {
+        FreeStyleProject p = (folder != null) ? folder.createProject(FreeStyleProject.class, name) : j.createFreeStyleProject(name);
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(TEN_MINUTES),
+                Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                null));
+        BlockingBuilder builder = new BlockingBuilder();
+        p.getBuildersList().add(builder);
+        FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+        builder.started.block();
+        return b;
+    }
+
+    @Test
+    void shortensBuildsInFolder(JenkinsRule j) throws Exception {
+        MockFolder team = j.createFolder("team");
+        FreeStyleBuild inFolder = startWithWrapper(j, team, "p1");
+        FreeStyleBuild outside = startWithWrapper(j, null, "p2");
+
+        // job names are matched without their folder, as for global time out rules.
+        assertEquals(0, new DeadlineAdjustment(null, null, "team/*").apply(0));
+        assertEquals(1, new DeadlineAdjustment(null, null, "p1").apply(0));
+        assertEquals(1, new DeadlineAdjustment("team", null, null).apply(-TEN_MINUTES));
+        j.assertBuildStatus(Result.ABORTED, j.waitForCompletion(inFolder));
+        assertTrue(outside.isBuilding());
+
+        outside.doStop();
+        j.waitForCompletion(outside);
+    }
+
+    @Test
+    void extendsBuildStepAndSelectsByJob(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject("step");
+        BlockingBuilder builder = new BlockingBuilder();
+        p.getBuildersList().add(new BuildStepWithTimeout(builder, new QuickBuildTimeOutStrategy(TEN_MINUTES), null));
+        FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+        builder.started.block();
+
+        assertEquals(0, new DeadlineAdjustment(null, null, "other*").apply(TEN_MINUTES));
+        assertEquals(1, new DeadlineAdjustment(null, null, "st?p").apply(TEN_MINUTES));
+        TimeOutMetrics.Timer timer = TimeOutMetrics.get().getActiveTimeOuts().page(0, Integer.MAX_VALUE).stream()
+                .filter(t -> t.getBuild() == b)
+                .findFirst()
+                .orElseThrow();
+        assertTrue(timer.getExpectedAt() - System.currentTimeMillis() > TEN_MINUTES);
+
+        assertEquals(1, new DeadlineAdjustment(null, null, "step").apply(-3 * TEN_MINUTES));
+        j.assertBuildStatus(Result.ABORTED, j.waitForCompletion(b));
+        assertFalse(timer.adjust(TEN_MINUTES));
+    }
+
+    @Test
+    void cli(JenkinsRule j) throws Exception {
+        FreeStyleBuild b = startWithWrapper(j, null, "p");
+
+        CLICommandInvoker.Result result = new CLICommandInvoker(j, new AdjustTimeOutsCommand())
+                .authorizedTo(Jenkins.ADMINISTER)
+                .invokeWithArgs("--job", "p", "--", "-10");
+        assertEquals(0, result.returnCode(), result.stderr());
+        assertTrue(result.stdout().contains("1 build(s)"), result.stdout());
+        j.assertBuildStatus(Result.ABORTED, j.waitForCompletion(b));
+    }
+}
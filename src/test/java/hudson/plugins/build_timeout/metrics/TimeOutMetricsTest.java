@@ -0,0 +1,129 @@
+package hudson.plugins.build_timeout.metrics;
+
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+import hudson.plugins.build_timeout.operations.AbortOperation;
+import net.sf.json.JSONObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.SleepBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@WithJenkins
+class TimeOutMetricsTest {
+    @Test
+    void histogramBuckets() {
+        assertEquals(0, Histogram.bucketOf(0));
+        assertEquals(0, Histogram.bucketOf(1));
+        assertEquals(2, Histogram.bucketOf(3));
+        assertEquals(2, Histogram.bucketOf(5));
+        assertEquals(Histogram.BOUNDS.length - 1, Histogram.bucketOf(Long.MAX_VALUE));
+
+        Histogram h = new Histogram();
+        assertEquals(0, h.getPercentile(0.5));
+        for (int i = 0; i < 98; ++i) {
+            h.record(3);
+        }
+        h.record(150);
+        h.record(120000);
+        assertEquals(100, h.getCount());
+        assertEquals(5, h.getPercentile(0.5));
+        assertEquals(200, h.getPercentile(0.99));
+        assertEquals(120000, h.getPercentile(1));
+        assertEquals(120000, h.getMax());
+    }
+
+    @Test
+    void timerIsCountedOnce() {
+        TimeOutMetrics metrics = TimeOutMetrics.get();
+        long live = metrics.getLiveTimeOuts();
+        long fired = metrics.getFiredCount();
+        long cancelled = metrics.getCancelledCount();
+
+        TimeOutMetrics.Timer timer = metrics.scheduled(TimeOutMetrics.Kind.WRAPPER, null, QuickBuildTimeOutStrategy.class, 0);
+        assertEquals(live + 1, metrics.getLiveTimeOuts());
+        timer.rescheduled(0);
+        timer.fired();
+        timer.cancelled();
+        timer.fired();
+        assertEquals(live, metrics.getLiveTimeOuts());
+        assertEquals(fired + 1, metrics.getFiredCount());
+        assertEquals(cancelled, metrics.getCancelledCount());
+        assertTrue(metrics.getFiredCountByStrategy().get("QuickBuildTimeOutStrategy") >= 1);
+    }
+
+    private static FreeStyleProject createTimingOutProject(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(1000),
+                Collections.<BuildTimeOutOperation>singletonList(new AbortOperation()),
+                null));
+        p.getBuildersList().add(new SleepBuilder(30 * 1000));
+        return p;
+    }
+
+    @Test
+    void publishedThroughJmxAndJson(JenkinsRule j) throws Exception {
+        FreeStyleProject p = createTimingOutProject(j);
+        long fired = TimeOutMetrics.get().getFiredCount();
+        long completed = TimeOutMetrics.get().getOperationCompletedCount();
+        j.assertBuildStatus(Result.ABORTED, p.scheduleBuild2(0).get());
+
+        assertEquals(fired + 1, TimeOutMetrics.get().getFiredCount());
+        assertEquals(completed + 1, TimeOutMetrics.get().getOperationCompletedCount());
+        assertEquals(fired + 1, ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(TimeOutMetrics.OBJECT_NAME), "FiredCount"));
+
+        JSONObject json = JSONObject.fromObject(j.createWebClient()
+                .goTo("build-timeout-metrics/", "application/json").getWebResponse().getContentAsString());
+        assertEquals(fired + 1, json.getJSONObject("timers").getLong("fired"));
+        assertTrue(json.getJSONObject("timers").getJSONObject("latenessMillis").getLong("count") >= 1);
+    }
+
+    @Test
+    void flightRecorderEvents(JenkinsRule j, @TempDir Path dir) throws Exception {
+        FreeStyleProject p = createTimingOutProject(j);
+        Path file = dir.resolve("build-timeout.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(StrategyEvaluationEvent.class);
+            recording.enable(TimerEvent.class);
+            recording.enable(OperationEvent.class);
+            recording.start();
+            j.assertBuildStatus(Result.ABORTED, p.scheduleBuild2(0).get());
+            recording.stop();
+            recording.dump(file);
+        }
+
+        String build = p.getLastBuild().getExternalizableId();
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(e -> build.equals(e.getString("build")))
+                .collect(Collectors.toList());
+        List<String> names = events.stream().map(e -> e.getEventType().getName()).collect(Collectors.toList());
+        assertTrue(names.contains("hudson.plugins.build_timeout.StrategyEvaluation"), names.toString());
+        assertTrue(names.contains("hudson.plugins.build_timeout.Operation"), names.toString());
+        List<String> actions = events.stream()
+                .filter(e -> e.getEventType().getName().equals("hudson.plugins.build_timeout.Timer"))
+                .map(e -> e.getString("action"))
+                .collect(Collectors.toList());
+        assertEquals(List.of(TimerEvent.SCHEDULED, TimerEvent.FIRED), actions);
+    }
+}
@@ -155,5 +155,91 @@ class AbortAndRestartOperationTest {
         // Build is not restarted
         assertEquals(1, p.getBuilds().size());
     }
-}
 
+    @Test
+    void exponentialBackoff(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        FreeStyleProject another = j.createFreeStyleProject();
+        AbortAndRestartOperation operation = new AbortAndRestartOperation("0");
+        operation.setBackoff(10);
+        operation.setMaxBackoff(35);
+        assertEquals(10, operation.nextDelay(p, 0));
+        assertEquals(20, operation.nextDelay(p, 0));
+        assertEquals(35, operation.nextDelay(p, 0));
+        // per job.
+        assertEquals(10, operation.nextDelay(another, 0));
+    }
+
+    @Test
+    void restartBudget(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        AbortAndRestartOperation operation = new AbortAndRestartOperation("0");
+        operation.setRestartBudget(2);
+        assertEquals(0, operation.nextDelay(p, 0));
+        assertEquals(0, operation.nextDelay(p, 0));
+        assertEquals(-1, operation.nextDelay(p, 0));
+        assertEquals(-1, operation.nextDelay(p, 0));
+    }
+
+    @Test
+    void restartBudgetOverSlidingWindow(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        AbortAndRestartOperation operation = new AbortAndRestartOperation("0");
+        operation.setRestartBudget(2);
+        long minute = 60 * 1000;
+        assertEquals(0, operation.nextDelay(p, 0));
+        assertEquals(0, operation.nextDelay(p, 30 * minute));
+        assertEquals(-1, operation.nextDelay(p, 45 * minute));
+        // the first restart is more than an hour ago.
+        assertEquals(0, operation.nextDelay(p, 61 * minute));
+        // the second one is not.
+        assertEquals(-1, operation.nextDelay(p, 75 * minute));
+    }
+
+    @Test
+    void invalidRestartDoesNotUseBudget(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("RESTART", null)));
+        AbortAndRestartOperation operation = new AbortAndRestartOperation("${RESTART}");
+        operation.setRestartBudget(1);
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(1000),
+                Arrays.asList(operation),
+                ""
+        ));
+        p.getBuildersList().add(new SleepBuilder(5*60*1000)); //5 minutes
+
+        j.assertBuildStatus(
+                Result.ABORTED,
+                p.scheduleBuild2(
+                        0,
+                        new Cause.UserIdCause(),
+                        new ParametersAction(new StringParameterValue("RESTART", "xxx"))
+                ).get()
+        );
+        j.waitUntilNoActivityUpTo(25000);
+        assertEquals(1, p.getBuilds().size());
+
+        // the budget is still available.
+        assertEquals(0, operation.nextDelay(p, System.currentTimeMillis()));
+    }
+
+    @Test
+    void restartBudgetExhausted(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        AbortAndRestartOperation operation = new AbortAndRestartOperation("5");
+        operation.setRestartBudget(1);
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(1000),
+                Arrays.asList(operation),
+                ""
+        ));
+        p.getBuildersList().add(new SleepBuilder(5*60*1000)); //5 minutes
+
+        p.scheduleBuild(new Cause.UserIdCause());
+        j.waitUntilNoActivityUpTo(25000);
+
+        assertEquals(2, p.getBuilds().size());
+        j.assertLogContains("Not restarting", p.getLastBuild());
+    }
+}
@@ -88,9 +88,11 @@ class BuildStepOperationTest {
     public static class TestBuilder extends Builder {
         public boolean result = true;
         public int executed = 0;
+        public transient Launcher launcher;
 
         @Override
         public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+            this.launcher = launcher;
             listener.getLogger().printf(
                     "%s is executed: times=%d%n",
                     getClass().getName(), ++executed
@@ -341,6 +343,49 @@ class BuildStepOperationTest {
         j.assertLogContains(TESTSTRING, p.getLastBuild());
     }
 
+    @Test
+    void preparedLauncher(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+
+        TestBuilder atTimeout = new TestBuilder();
+        BuildStepOperation op = new BuildStepOperation(atTimeout, false, true);
+        op.setPrepareLauncher(true);
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(5000),
+                Arrays.asList(op),
+                null
+        ));
+        TestBuilder atStart = new TestBuilder();
+        p.getBuildersList().add(atStart);
+        p.getBuildersList().add(new SleepBuilder(9999));
+
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        assertEquals(1, atTimeout.executed);
+        // the launcher the build steps got, decorated by the build wrappers.
+        assertNotNull(atStart.launcher);
+        assertSame(atStart.launcher, atTimeout.launcher);
+    }
+
+    @Test
+    void launcherCreatedAtTimeout(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+
+        TestBuilder atTimeout = new TestBuilder();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(5000),
+                Arrays.asList(new BuildStepOperation(atTimeout, false, true)),
+                null
+        ));
+        TestBuilder atStart = new TestBuilder();
+        p.getBuildersList().add(atStart);
+        p.getBuildersList().add(new SleepBuilder(9999));
+
+        j.assertBuildStatusSuccess(p.scheduleBuild2(0));
+        assertEquals(1, atTimeout.executed);
+        assertNotNull(atTimeout.launcher);
+        assertNotSame(atStart.launcher, atTimeout.launcher);
+    }
+
     @Test
     void noLauncher(JenkinsRule j) throws Exception {
         FreeStyleProject p = j.createFreeStyleProject();
@@ -0,0 +1,73 @@
+package hudson.plugins.build_timeout.operations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import hudson.Functions;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+import hudson.tasks.Shell;
+
+@WithJenkins
+class CaptureDiagnosticsOperationTest {
+
+    @BeforeEach
+    void setUp() {
+        BuildTimeoutWrapper.MINIMUM_TIMEOUT_MILLISECONDS = 0;
+    }
+
+    @Test
+    void capsOutput() {
+        CaptureDiagnosticsOperation.CappedOutputStream out = new CaptureDiagnosticsOperation.CappedOutputStream(4);
+        out.write(new byte[] {1, 2, 3}, 0, 3);
+        assertFalse(out.isFull());
+        out.write(new byte[] {4, 5, 6}, 0, 3);
+        out.write(7);
+        assertTrue(out.isFull());
+        assertEquals(4, out.toByteArray().length);
+    }
+
+    @Test
+    void marksTruncation() throws Exception {
+        int maxBytes = CaptureDiagnosticsOperation.Capture.TRAILER_SIZE + 8;
+        byte[] capture = new CaptureDiagnosticsOperation.Capture(Collections.<String, String>emptyMap(), 10000, maxBytes).call();
+        String diagnostics = new String(capture, StandardCharsets.UTF_8);
+        assertTrue(diagnostics.endsWith(String.format("%n... truncated at %d bytes%n", maxBytes)), diagnostics);
+        assertTrue(capture.length <= maxBytes, diagnostics);
+    }
+
+    @Test
+    void capturesProcesses(JenkinsRule j) throws Exception {
+        assumeFalse(Functions.isWindows());
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(2000),
+                Arrays.asList(new CaptureDiagnosticsOperation(10, 64), new AbortOperation()),
+                null
+        ));
+        p.getBuildersList().add(new Shell("sleep 60"));
+
+        FreeStyleBuild b = j.assertBuildStatus(Result.ABORTED, p.scheduleBuild2(0).get());
+        j.assertLogContains("Diagnostics of the build written to", b);
+        File file = new File(b.getRootDir(), CaptureDiagnosticsOperation.FILE_NAME);
+        String diagnostics = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        assertTrue(diagnostics.contains("sleep"), diagnostics);
+    }
+}
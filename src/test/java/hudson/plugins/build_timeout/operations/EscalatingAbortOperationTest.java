@@ -0,0 +1,97 @@
+package hudson.plugins.build_timeout.operations;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@WithJenkins
+class EscalatingAbortOperationTest {
+
+    @BeforeEach
+    void setUp() {
+        BuildTimeoutWrapper.MINIMUM_TIMEOUT_MILLISECONDS = 0;
+    }
+
+    /**
+     * Ignores interrupts until interrupted the given number of times.
+     */
+    public static class StubbornBuilder extends TestBuilder {
+        private final int interruptsToStop;
+
+        public StubbornBuilder(int interruptsToStop) {
+            this.interruptsToStop = interruptsToStop;
+        }
+
+        @Override
+        public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                throws InterruptedException, IOException {
+            int interrupts = 0;
+            long end = System.currentTimeMillis() + 60 * 1000;
+            while (System.currentTimeMillis() < end) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    if (++interrupts >= interruptsToStop) {
+                        throw e;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+
+    @Test
+    void defaults() {
+        EscalatingAbortOperation op = new EscalatingAbortOperation(0, 0, true);
+        assertEquals(EscalatingAbortOperation.DEFAULT_GRACE_PERIOD, op.getGracePeriod());
+        assertEquals(EscalatingAbortOperation.DEFAULT_MAX_INTERRUPTS, op.getMaxInterrupts());
+    }
+
+    @Test
+    void interruptsAgain(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(1000),
+                Arrays.asList(new EscalatingAbortOperation(1, 3, false)),
+                null
+        ));
+        p.getBuildersList().add(new StubbornBuilder(2));
+
+        FreeStyleBuild b = j.assertBuildStatus(Result.ABORTED, p.scheduleBuild2(0).get());
+        j.assertLogContains("(stage 2)", b);
+        j.assertLogNotContains("(stage 3)", b);
+    }
+
+    @Test
+    void givesUp(JenkinsRule j) throws Exception {
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(1000),
+                Arrays.asList(new EscalatingAbortOperation(1, 1, false)),
+                null
+        ));
+        p.getBuildersList().add(new StubbornBuilder(2));
+
+        FreeStyleBuild b = p.scheduleBuild2(0).waitForStart();
+        j.waitForMessage("Giving up.", b);
+        b.getExecutor().interrupt();
+        j.assertBuildStatus(Result.ABORTED, j.waitForCompletion(b));
+    }
+}
@@ -0,0 +1,70 @@
+package hudson.plugins.build_timeout.operations;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.junit.jupiter.WithJenkins;
+
+import hudson.Functions;
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import hudson.plugins.build_timeout.BuildTimeoutWrapper;
+import hudson.plugins.build_timeout.QuickBuildTimeOutStrategy;
+import hudson.tasks.Shell;
+
+@WithJenkins
+class TerminateProcessesOperationTest {
+
+    @BeforeEach
+    void setUp() {
+        BuildTimeoutWrapper.MINIMUM_TIMEOUT_MILLISECONDS = 0;
+    }
+
+    @Test
+    void normalizesSignal(JenkinsRule j) {
+        assertEquals("INT", new TerminateProcessesOperation("sigint", 5).getSignal());
+        assertEquals("TERM", new TerminateProcessesOperation("KILL", 5).getSignal());
+        assertEquals("TERM", new TerminateProcessesOperation(null, 5).getSignal());
+    }
+
+    @Test
+    void terminatesProcesses(JenkinsRule j) throws Exception {
+        assumeFalse(Functions.isWindows());
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(2000),
+                Arrays.asList(new TerminateProcessesOperation("TERM", 5), new AbortOperation()),
+                null
+        ));
+        p.getBuildersList().add(new Shell("sleep 60"));
+
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        assertNotEquals(Result.SUCCESS, b.getResult());
+        j.assertLogContains("Sent SIGTERM to", b);
+        j.assertLogNotContains("Still running after SIGKILL", b);
+    }
+
+    @Test
+    void killsProcessesIgnoringSignal(JenkinsRule j) throws Exception {
+        assumeFalse(Functions.isWindows());
+        FreeStyleProject p = j.createFreeStyleProject();
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(2000),
+                Arrays.asList(new TerminateProcessesOperation("TERM", 1), new AbortOperation()),
+                null
+        ));
+        p.getBuildersList().add(new Shell("trap '' TERM\nwhile true; do sleep 1; done"));
+
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        assertNotEquals(Result.SUCCESS, b.getResult());
+        j.assertLogContains("Still running 1 seconds after SIGTERM", b);
+    }
+}
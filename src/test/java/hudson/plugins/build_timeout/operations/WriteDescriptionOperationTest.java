@@ -112,4 +112,36 @@ class WriteDescriptionOperationTest {
 
         assertEquals(EXPECTED, b.getDescription());
     }
+
+    private static WriteDescriptionOperation deferred(String description) {
+        WriteDescriptionOperation op = new WriteDescriptionOperation(description);
+        op.setDeferred(true);
+        return op;
+    }
+
+    @Test
+    void setDescriptionDeferred(JenkinsRule j) throws Exception {
+        final String DESCRIPTION1 = "description to test: {0}, {0}.";
+        final String DESCRIPTION2 = "Another message with ${JOB_NAME}.";
+
+        FreeStyleProject p = j.createFreeStyleProject("deferred");
+        p.getBuildWrappersList().add(new BuildTimeoutWrapper(
+                new QuickBuildTimeOutStrategy(5000),
+                Arrays.asList(
+                        deferred(DESCRIPTION1),
+                        new AbortOperation(),
+                        deferred(DESCRIPTION2)
+                )
+        ));
+        p.getBuildersList().add(new SleepBuilder(10000));
+
+        FreeStyleBuild b = p.scheduleBuild2(0).get();
+        j.assertBuildStatus(Result.ABORTED, b);
+
+        long end = System.currentTimeMillis() + 10 * 1000;
+        while (b.getDescription() == null && System.currentTimeMillis() < end) {
+            Thread.sleep(100);
+        }
+        assertEquals("Another message with deferred.", b.getDescription());
+    }
 }
@@ -0,0 +1,53 @@
+package hudson.plugins.build_timeout.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Global time outs of thousands of builds on a virtual clock.
+ *
+ * Scale with {@code -Dsimulation.builds=100000}: the report of each profile is logged.
+ */
+class LoadSimulationTest {
+    private static final Logger LOG = Logger.getLogger(LoadSimulationTest.class.getName());
+    private static final int BUILDS = Integer.getInteger("simulation.builds", 2000);
+    private static final long ABSOLUTE = TimeUnit.MINUTES.toMillis(60);
+    /**
+     * The global time out measures its deadline with the wall clock, which moves a little during the simulation.
+     */
+    private static final long TOLERANCE = 1000;
+
+    private static Simulation.Report simulate(Workload.Profile profile) throws Exception {
+        Simulation.Report report = new Simulation(profile, BUILDS, ABSOLUTE, 42).run();
+        LOG.info(report.toString());
+        assertEquals(0, report.missed, report.toString());
+        assertEquals(0, report.spurious, report.toString());
+        assertTrue(report.errorMillis(1) <= TOLERANCE, report.toString());
+        return report;
+    }
+
+    @Test
+    void spreadStarts() throws Exception {
+        Simulation.Report report = simulate(Workload.Profile.SPREAD_STARTS);
+        assertTrue(report.expectedTimeOuts > 0, report.toString());
+    }
+
+    @Test
+    void hangs() throws Exception {
+        Simulation.Report report = simulate(Workload.Profile.HANGS);
+        assertTrue(report.expectedTimeOuts > 0, report.toString());
+        assertTrue(report.expectedTimeOuts < BUILDS, report.toString());
+    }
+
+    @Test
+    void deadlineCluster() throws Exception {
+        Simulation.Report report = simulate(Workload.Profile.DEADLINE_CLUSTER);
+        assertEquals(BUILDS, report.timedOut, report.toString());
+        assertTrue(report.maxLiveTimers >= BUILDS, report.toString());
+    }
+}
@@ -0,0 +1,241 @@
+package hudson.plugins.build_timeout.simulation;
+
+import hudson.model.AbstractBuild;
+import hudson.model.AbstractProject;
+import hudson.model.BuildListener;
+import hudson.model.StreamBuildListener;
+import hudson.plugins.build_timeout.BuildTimeOutOperation;
+import hudson.plugins.build_timeout.BuildTimeOutOperationDescriptor;
+import hudson.plugins.build_timeout.global.ConcurrentTimeOutStore;
+import hudson.plugins.build_timeout.global.GlobalTimeOutRunListener;
+import hudson.plugins.build_timeout.global.TimeOutProvider;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Runs a {@link Workload} on a {@link VirtualScheduler}.
+ *
+ * Each build gets a global absolute time out through the real {@link GlobalTimeOutRunListener},
+ * {@code TimeOutTask} and {@code OperationWatchdog}.
+ * The wrapper schedules on {@code Trigger.timer} against the wall clock, so it is not simulated:
+ * its time outs are covered by the tests of the wrapper.
+ */
+final class Simulation {
+    private final Workload.Profile profile;
+    private final int builds;
+    private final long absolute;
+    private final long seed;
+
+    private VirtualScheduler scheduler;
+    private GlobalTimeOutRunListener globalTimeOut;
+    private final Map<AbstractBuild<?, ?>, SimulatedBuild> byBuild = new IdentityHashMap<>();
+    private final BuildListener listener = new StreamBuildListener(OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+
+    Simulation(Workload.Profile profile, int builds, long absolute, long seed) {
+        this.profile = profile;
+        this.builds = builds;
+        this.absolute = absolute;
+        this.seed = seed;
+    }
+
+    private static final class SimulatedBuild {
+        private final Workload.Build spec;
+        private final AbstractBuild<?, ?> build;
+        private boolean over;
+        private long timedOutAt = Long.MAX_VALUE;
+
+        private SimulatedBuild(Workload.Build spec, AbstractBuild<?, ?> build) {
+            this.spec = spec;
+            this.build = build;
+        }
+    }
+
+    /**
+     * Aborts the simulated build.
+     */
+    private final class SimulatedAbort extends BuildTimeOutOperation {
+        @Override
+        public boolean perform(@NonNull AbstractBuild<?, ?> build, @NonNull BuildListener listener, long effectiveTimeout) {
+            timedOut(byBuild.get(build));
+            return true;
+        }
+
+        @Override
+        public long getExecutionBudget() {
+            // run inline, on the simulation thread
+            return 0;
+        }
+
+        @Override
+        public BuildTimeOutOperationDescriptor getDescriptor() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    Report run() throws IOException, InterruptedException {
+        long start = System.currentTimeMillis();
+        List<Workload.Build> workload = Workload.generate(profile, builds, absolute, start, seed);
+        List<SimulatedBuild> simulated = new ArrayList<>(workload.size());
+        AbstractProject<?, ?> project = mock(AbstractProject.class, withSettings().stubOnly());
+        when(project.getFullName()).thenReturn("simulated");
+        for (Workload.Build spec : workload) {
+            AbstractBuild<?, ?> build = mock(AbstractBuild.class, withSettings().stubOnly());
+            doReturn(project).when(build).getParent();
+            when(build.getNumber()).thenReturn(spec.id + 1);
+            when(build.getExternalizableId()).thenReturn("simulated#" + (spec.id + 1));
+            SimulatedBuild b = new SimulatedBuild(spec, build);
+            byBuild.put(build, b);
+            simulated.add(b);
+        }
+
+        List<BuildTimeOutOperation> operations = Collections.singletonList(new SimulatedAbort());
+        scheduler = new VirtualScheduler(start);
+        globalTimeOut = new GlobalTimeOutRunListener(scheduler, new TimeOutProvider() {
+            @Override
+            public Optional<Duration> timeOutFor(AbstractBuild<?, ?> build, BuildListener listener) {
+                return Optional.of(Duration.ofMillis(absolute));
+            }
+
+            @Override
+            public List<BuildTimeOutOperation> getOperations() {
+                return operations;
+            }
+        }, new ConcurrentTimeOutStore());
+
+        long allocatedBefore = allocatedBytes();
+        long wallBefore = System.nanoTime();
+        for (SimulatedBuild b : simulated) {
+            scheduler.schedule(() -> started(b), b.spec.startAt - start, TimeUnit.MILLISECONDS);
+        }
+        scheduler.runAll();
+        long wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - wallBefore);
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        Report report = new Report(profile, simulated.size(), scheduler.getMaxLive(), scheduler.getExecuted(), wall, allocated);
+        for (SimulatedBuild b : simulated) {
+            report.add(b.spec.expectedTimeOut(absolute), b.timedOutAt);
+        }
+        return report;
+    }
+
+    private void started(SimulatedBuild b) {
+        try {
+            globalTimeOut.setUpEnvironment(b.build, null, listener);
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        if (b.spec.endAt != Long.MAX_VALUE) {
+            scheduler.schedule(() -> ended(b), b.spec.endAt - scheduler.now(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void timedOut(SimulatedBuild b) {
+        if (b.over) {
+            return;
+        }
+        b.timedOutAt = scheduler.now();
+        ended(b);
+    }
+
+    private void ended(SimulatedBuild b) {
+        if (b.over) {
+            return;
+        }
+        b.over = true;
+        globalTimeOut.onCompleted(b.build, listener);
+    }
+
+    @SuppressWarnings("deprecation")
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Timing accuracy and cost of a simulation.
+     */
+    static final class Report {
+        final Workload.Profile profile;
+        final int builds;
+        final int maxLiveTimers;
+        final long tasks;
+        final long wallMillis;
+        final long allocatedBytes;
+        int expectedTimeOuts;
+        int timedOut;
+        int missed;
+        int spurious;
+        private long[] errors = new long[16];
+        private int errorCount;
+
+        Report(Workload.Profile profile, int builds, int maxLiveTimers, long tasks, long wallMillis, long allocatedBytes) {
+            this.profile = profile;
+            this.builds = builds;
+            this.maxLiveTimers = maxLiveTimers;
+            this.tasks = tasks;
+            this.wallMillis = wallMillis;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        void add(long expected, long actual) {
+            if (expected != Long.MAX_VALUE) {
+                ++expectedTimeOuts;
+            }
+            if (actual != Long.MAX_VALUE) {
+                ++timedOut;
+            }
+            if (expected != Long.MAX_VALUE && actual == Long.MAX_VALUE) {
+                ++missed;
+            } else if (expected == Long.MAX_VALUE && actual != Long.MAX_VALUE) {
+                ++spurious;
+            } else if (expected != Long.MAX_VALUE) {
+                if (errorCount == errors.length) {
+                    errors = Arrays.copyOf(errors, errorCount * 2);
+                }
+                errors[errorCount++] = Math.abs(actual - expected);
+            }
+        }
+
+        /**
+         * @param quantile between 0 and 1
+         * @return the error of time outs (milliseconds) at that quantile.
+         */
+        long errorMillis(double quantile) {
+            if (errorCount == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(errors, errorCount);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(quantile * errorCount) - 1)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d builds, %d expected time outs, %d timed out (%d missed, %d spurious), "
+                            + "error p99=%d ms max=%d ms, %d timers at most, %d tasks, %d ms, %d bytes allocated",
+                    profile, builds, expectedTimeOuts, timedOut, missed, spurious,
+                    errorMillis(0.99), errorMillis(1), maxLiveTimers, tasks, wallMillis, allocatedBytes);
+        }
+    }
+}
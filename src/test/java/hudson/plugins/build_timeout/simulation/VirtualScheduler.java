@@ -0,0 +1,202 @@
+package hudson.plugins.build_timeout.simulation;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScheduledExecutorService} on a virtual clock: tasks run on the calling thread
+ * of {@link #runUntil(long)}, in order of their due time, and the clock jumps from task to task.
+ *
+ * Not thread safe: everything runs on the simulation thread.
+ */
+class VirtualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+    private final PriorityQueue<Task<?>> queue = new PriorityQueue<>();
+    private long now;
+    private long seq;
+    private int live;
+    private int maxLive;
+    private long executed;
+
+    VirtualScheduler(long now) {
+        this.now = now;
+    }
+
+    /**
+     * @return the virtual time (epoch milliseconds).
+     */
+    long now() {
+        return now;
+    }
+
+    /**
+     * Runs the tasks due until the given time, included.
+     *
+     * @param until virtual time (epoch milliseconds)
+     */
+    void runUntil(long until) {
+        while (!queue.isEmpty() && queue.peek().at <= until) {
+            Task<?> task = queue.poll();
+            if (task.cancelled) {
+                continue;
+            }
+            --live;
+            now = Math.max(now, task.at);
+            task.done = true;
+            ++executed;
+            try {
+                task.callable.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        now = Math.max(now, until);
+    }
+
+    /**
+     * Runs all the tasks.
+     */
+    void runAll() {
+        runUntil(Long.MAX_VALUE - 1);
+    }
+
+    /**
+     * @return the most tasks pending at once.
+     */
+    int getMaxLive() {
+        return maxLive;
+    }
+
+    /**
+     * @return the number of tasks run.
+     */
+    long getExecuted() {
+        return executed;
+    }
+
+    @NonNull
+    @Override
+    public ScheduledFuture<?> schedule(@NonNull Runnable command, long delay, @NonNull TimeUnit unit) {
+        return schedule(() -> {
+            command.run();
+            return null;
+        }, delay, unit);
+    }
+
+    @NonNull
+    @Override
+    public <V> ScheduledFuture<V> schedule(@NonNull Callable<V> callable, long delay, @NonNull TimeUnit unit) {
+        Task<V> task = new Task<>(callable, now + Math.max(0, unit.toMillis(delay)), seq++);
+        queue.add(task);
+        maxLive = Math.max(maxLive, ++live);
+        return task;
+    }
+
+    @NonNull
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(@NonNull Runnable command, long initialDelay, long period, @NonNull TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @NonNull
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(@NonNull Runnable command, long initialDelay, long delay, @NonNull TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        queue.clear();
+    }
+
+    @NonNull
+    @Override
+    public List<Runnable> shutdownNow() {
+        queue.clear();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return false;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return false;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, @NonNull TimeUnit unit) {
+        return true;
+    }
+
+    private final class Task<V> implements ScheduledFuture<V> {
+        private final Callable<V> callable;
+        private final long at;
+        private final long order;
+        private boolean cancelled;
+        private boolean done;
+
+        private Task(Callable<V> callable, long at, long order) {
+            this.callable = callable;
+            this.at = at;
+            this.order = order;
+        }
+
+        @Override
+        public long getDelay(@NonNull TimeUnit unit) {
+            return unit.convert(at - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(@NonNull Delayed o) {
+            Task<?> other = (Task<?>) o;
+            int c = Long.compare(at, other.at);
+            return (c != 0) ? c : Long.compare(order, other.order);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (cancelled || done) {
+                return false;
+            }
+            // removed lazily when due
+            cancelled = true;
+            --live;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return cancelled || done;
+        }
+
+        @Override
+        public V get() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V get(long timeout, @NonNull TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package hudson.plugins.build_timeout.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates builds for the simulation: when they start and when they end.
+ */
+final class Workload {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    /**
+     * Shapes of workloads.
+     */
+    enum Profile {
+        /**
+         * Builds starting over an hour, some of them running past the absolute time out.
+         */
+        SPREAD_STARTS,
+        /**
+         * Builds ending well within the absolute time out, but for some which hang and never end.
+         */
+        HANGS,
+        /**
+         * Builds starting within the same few seconds and running past the absolute time out,
+         * so that their deadlines fire together.
+         */
+        DEADLINE_CLUSTER,
+    }
+
+    /**
+     * A simulated build.
+     */
+    static final class Build {
+        final int id;
+        final long startAt;
+        final long endAt;
+
+        Build(int id, long startAt, long endAt) {
+            this.id = id;
+            this.startAt = startAt;
+            this.endAt = endAt;
+        }
+
+        /**
+         * @param absolute absolute time out (milliseconds)
+         * @return when the build is expected to time out, or {@link Long#MAX_VALUE} if it ends first.
+         */
+        long expectedTimeOut(long absolute) {
+            long expected = startAt + absolute;
+            return (expected < endAt) ? expected : Long.MAX_VALUE;
+        }
+    }
+
+    private Workload() {
+    }
+
+    /**
+     * @param profile shape of the workload
+     * @param builds number of builds
+     * @param absolute absolute time out (milliseconds)
+     * @param start when the first build may start (epoch milliseconds)
+     * @param seed seed of the random generator
+     * @return builds ordered by id.
+     */
+    static List<Build> generate(Profile profile, int builds, long absolute, long start, long seed) {
+        Random random = new Random(seed);
+        List<Build> result = new ArrayList<>(builds);
+        for (int i = 0; i < builds; ++i) {
+            switch (profile) {
+                case SPREAD_STARTS:
+                    result.add(spread(i, random, absolute, start));
+                    break;
+                case HANGS:
+                    result.add(hang(i, random, absolute, start));
+                    break;
+                default:
+                    result.add(cluster(i, random, absolute, start));
+                    break;
+            }
+        }
+        return result;
+    }
+
+    private static Build spread(int id, Random random, long absolute, long start) {
+        long startAt = start + (long) (random.nextDouble() * 60 * MINUTE);
+        long endAt = startAt + (long) (random.nextDouble() * 1.2 * absolute);
+        if (endAt == startAt + absolute) {
+            // would tie with the time out, whose order with the end of the build is arbitrary
+            ++endAt;
+        }
+        return new Build(id, startAt, endAt);
+    }
+
+    private static Build hang(int id, Random random, long absolute, long start) {
+        long startAt = start + (long) (random.nextDouble() * 60 * MINUTE);
+        boolean hangs = random.nextInt(4) == 0;
+        long endAt = hangs ? Long.MAX_VALUE : startAt + (long) (random.nextDouble() * 0.9 * absolute);
+        return new Build(id, startAt, endAt);
+    }
+
+    private static Build cluster(int id, Random random, long absolute, long start) {
+        long startAt = start + random.nextInt(5000);
+        return new Build(id, startAt, startAt + absolute + MINUTE);
+    }
+}